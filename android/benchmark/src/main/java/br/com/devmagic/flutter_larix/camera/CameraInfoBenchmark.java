@@ -0,0 +1,56 @@
+package br.com.devmagic.flutter_larix.camera;
+
+import com.wmspanel.libstream.Streamer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CameraInfoBenchmark {
+
+    // Ranges reported by a typical back camera
+    private static final int[][] FPS_RANGES = {
+            {7, 30}, {8, 30}, {10, 30}, {12, 15}, {15, 15}, {15, 20}, {15, 30},
+            {20, 20}, {24, 24}, {24, 30}, {30, 30}, {30, 60}, {60, 60}
+    };
+
+    // Targets conditioner asks for when it lowers fps
+    private static final float[] TARGETS = {30, 25, 20, 15};
+
+    @Param({"false", "true"})
+    boolean strict;
+
+    private CameraInfo mCameraInfo;
+    private int mTarget;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mCameraInfo = new CameraInfo();
+        for (int[] range : FPS_RANGES) {
+            mCameraInfo.fpsRanges.add(new Streamer.FpsRange(range[0], range[1]));
+        }
+    }
+
+    @Benchmark
+    public Streamer.FpsRange findNearestFpsRange() {
+        mTarget = (mTarget + 1) % TARGETS.length;
+        return mCameraInfo.findNearestFpsRange(TARGETS[mTarget], strict);
+    }
+}
@@ -0,0 +1,44 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import com.wmspanel.libstream.RistStats;
+import com.wmspanel.libstream.SrtStats;
+import com.wmspanel.libstream.Streamer;
+import com.wmspanel.libstream.TcpStats;
+
+// Streamer without camera, encoders and network, returns whatever statistics benchmark put into it
+public class FakeStreamer extends Streamer {
+    public TcpStats tcpStats;
+    public SrtStats srtStats;
+    public RistStats ristStats;
+    public int bitrate;
+    public FpsRange fpsRange;
+
+    @Override
+    public void startVideoCapture() {
+    }
+
+    @Override
+    public TcpStats getTcpStats(int connectionId) {
+        return tcpStats;
+    }
+
+    @Override
+    public SrtStats getSrtStats(int connectionId) {
+        return srtStats;
+    }
+
+    @Override
+    public RistStats getRistStats(int connectionId) {
+        return ristStats;
+    }
+
+    @Override
+    public void changeBitRate(int bitrate) {
+        this.bitrate = bitrate;
+    }
+
+    @Override
+    public void changeFpsRange(FpsRange range) {
+        fpsRange = range;
+    }
+}
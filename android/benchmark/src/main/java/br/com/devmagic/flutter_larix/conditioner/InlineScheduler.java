@@ -0,0 +1,33 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Runs one-shot tasks on caller thread and parks periodic ones,
+// so benchmark thread owns conditioner state and drives check() itself
+final class InlineScheduler extends ScheduledThreadPoolExecutor {
+
+    InlineScheduler() {
+        super(1);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        command.run();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        return park();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        return park();
+    }
+
+    private ScheduledFuture<?> park() {
+        return super.schedule(() -> { }, 365, TimeUnit.DAYS);
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-tick cost of ladder conditioner after a long session, must not grow with session length
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LadderAscendBenchmark {
+
+    @Param({"1", "4", "12"})
+    int sessionHours;
+
+    private InlineScheduler mScheduler;
+    private VirtualClock mClock;
+    private StreamConditionerLadderAscend mConditioner;
+    private SessionTrace mTrace;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mScheduler = new InlineScheduler();
+        mClock = new VirtualClock(SessionTrace.START_TIME);
+        mConditioner = new StreamConditionerLadderAscend(null);
+        mConditioner.setExecutors(mScheduler, Runnable::run);
+        mConditioner.setClock(mClock);
+        mConditioner.start(new FakeStreamer(), 6_000_000);
+        mConditioner.addConnection(1);
+        mTrace = new SessionTrace(42);
+        mTrace.replay(mConditioner, mClock, sessionHours);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mScheduler.shutdownNow();
+    }
+
+    // One statistics tick, session keeps going through measurement
+    @Benchmark
+    public int check() {
+        mClock.advance(mConditioner.effectiveCheckInterval());
+        mTrace.next();
+        mConditioner.check(mTrace.audioLost, mTrace.videoLost);
+        return mConditioner.getBitrate();
+    }
+
+    @Benchmark
+    public boolean canTryToRecover() {
+        return mConditioner.canTryToRecover();
+    }
+
+    @Benchmark
+    public long countLostForInterval() {
+        return mConditioner.countLostForInterval(mClock.now() - 10_000);
+    }
+}
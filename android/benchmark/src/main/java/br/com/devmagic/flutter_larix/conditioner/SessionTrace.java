@@ -0,0 +1,44 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import java.util.Random;
+
+// Synthetic cumulative frame loss of a mobile session: clean periods with congestion episodes
+// (a few per hour, 20 seconds to 2 minutes long) losing up to 10 frames per check.
+final class SessionTrace {
+    static final long START_TIME = 1_600_000_000_000L;
+    private static final double EPISODE_PROBABILITY = 0.004;
+
+    private final Random mRandom;
+    private int mEpisodeTicks;
+    long audioLost;
+    long videoLost;
+
+    SessionTrace(long seed) {
+        mRandom = new Random(seed);
+    }
+
+    static int ticks(int hours, long interval) {
+        return (int) (hours * 3_600_000L / interval);
+    }
+
+    void next() {
+        if (mEpisodeTicks == 0 && mRandom.nextDouble() < EPISODE_PROBABILITY) {
+            mEpisodeTicks = 10 + mRandom.nextInt(50);
+        }
+        if (mEpisodeTicks > 0) {
+            mEpisodeTicks--;
+            audioLost += mRandom.nextInt(3);
+            videoLost += 1 + mRandom.nextInt(10);
+        }
+    }
+
+    // Plays the whole session through conditioner, leaves its histories in end-of-session state
+    void replay(StreamConditionerBase conditioner, VirtualClock clock, int hours) {
+        final long interval = conditioner.effectiveCheckInterval();
+        for (int i = ticks(hours, interval); i > 0; i--) {
+            clock.advance(interval);
+            next();
+            conditioner.check(audioLost, videoLost);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrafficHistoryBenchmark {
+
+    @Param({"1", "4", "12"})
+    int sessionHours;
+
+    // StreamStats windows: bytes sent and bandwidth (5), RTT (20)
+    @Param({"5", "20"})
+    int capacity;
+
+    private TrafficHistory mHistory;
+    private Random mRandom;
+    private long mBytesSent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mHistory = new TrafficHistory(capacity);
+        mRandom = new Random(42);
+        // One sample per second
+        for (int i = SessionTrace.ticks(sessionHours, 1000); i > 0; i--) {
+            putNext();
+        }
+    }
+
+    private void putNext() {
+        mBytesSent += 250_000 + mRandom.nextInt(100_000);
+        mHistory.put(mBytesSent);
+    }
+
+    @Benchmark
+    public double avg() {
+        return mHistory.avg();
+    }
+
+    @Benchmark
+    public double putAndAvg() {
+        putNext();
+        return mHistory.avg();
+    }
+}
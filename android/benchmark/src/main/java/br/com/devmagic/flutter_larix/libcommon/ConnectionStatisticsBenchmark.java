@@ -0,0 +1,73 @@
+package br.com.devmagic.flutter_larix.libcommon;
+
+import com.wmspanel.libstream.RistStats;
+import com.wmspanel.libstream.SrtStats;
+import com.wmspanel.libstream.TcpStats;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import br.com.devmagic.flutter_larix.conditioner.FakeStreamer;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionStatisticsBenchmark {
+
+    @Param({"tcp", "srt", "rist"})
+    String protocol;
+
+    private FakeStreamer mStreamer;
+    private ConnectionStatistics mStatistics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mStreamer = new FakeStreamer();
+        switch (protocol) {
+            case "srt":
+                mStreamer.srtStats = new SrtStats();
+                break;
+            case "rist":
+                mStreamer.ristStats = new RistStats();
+                mStreamer.ristStats.quality = 95.0;
+                break;
+            default:
+                mStreamer.tcpStats = new TcpStats();
+                break;
+        }
+        mStatistics = new ConnectionStatistics();
+        mStatistics.init();
+    }
+
+    // Counters move between polls like on a live connection
+    @Benchmark
+    public long update() {
+        if (mStreamer.tcpStats != null) {
+            mStreamer.tcpStats.bytesSent += 500_000;
+            mStreamer.tcpStats.videoFramesSkipped++;
+        } else if (mStreamer.srtStats != null) {
+            mStreamer.srtStats.byteSentUnique += 500_000;
+            mStreamer.srtStats.pktSentUnique += 380;
+            mStreamer.srtStats.pktSndDrop++;
+        } else {
+            mStreamer.ristStats.sent += 380;
+        }
+        mStatistics.update(mStreamer, 1);
+        return mStatistics.getBandwidth();
+    }
+}
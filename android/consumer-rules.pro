@@ -0,0 +1,7 @@
+# KeyFrameRequester reaches the video encoder of libstream by field names, see LibstreamFields
+-keepclassmembers class com.wmspanel.libstream.Streamer {
+    com.wmspanel.libstream.VideoEncoder mVideoEncoder;
+}
+-keepclassmembers class com.wmspanel.libstream.MediaCodecState {
+    android.media.MediaCodec mEncoder;
+}
@@ -0,0 +1,62 @@
+package br.com.devmagic.flutter_larix;
+
+import com.wmspanel.libstream.Streamer;
+
+import java.util.Locale;
+
+// Classifies disconnects as libstream reports them: status plus fields of the last RTMP answer,
+// nothing for SRT and RIST. Words like "auth" or "rejected" in names, paths and generic
+// answers must not make a failure permanent. Exits with status 1 on any mismatch.
+public final class ConnectionFailureCheck {
+
+    private static final Streamer.Status CONN_FAIL = Streamer.Status.CONN_FAIL;
+    private static final Streamer.Status AUTH_FAIL = Streamer.Status.AUTH_FAIL;
+    private static final Streamer.Status UNKNOWN_FAIL = Streamer.Status.UNKNOWN_FAIL;
+
+    private static boolean sOk = true;
+
+    public static void main(String[] args) {
+        System.out.println("Retryable despite keywords:");
+        expect("stream name with author", UNKNOWN_FAIL, "status", "NetStream.Publish.Start",
+                "live/author_interview is now published", true, false, ConnectionFailure.UNKNOWN);
+        expect("auth and in use in url path", UNKNOWN_FAIL, "error", "NetConnection.Connect.Failed",
+                "rtmp://ingest.example.com/auth/key-in-use/live", true, false, ConnectionFailure.UNKNOWN);
+        expect("generic rejected", UNKNOWN_FAIL, "error", "NetConnection.Connect.Rejected",
+                "Connection rejected", true, false, ConnectionFailure.UNKNOWN);
+        expect("forbidden in status text", UNKNOWN_FAIL, "status", "NetStream.Unpublish.Success",
+                "forbidden-city stopped", true, true, ConnectionFailure.SERVER_CLOSED);
+        expect("srt after handshake", UNKNOWN_FAIL, null, null, null, true, false, ConnectionFailure.UNKNOWN);
+        expect("srt handshake lost", CONN_FAIL, null, null, null, true, false, ConnectionFailure.TIMEOUT);
+        expect("srt no answer", CONN_FAIL, null, null, null, false, false, ConnectionFailure.HOST_UNREACHABLE);
+        expect("codec word in stream name", UNKNOWN_FAIL, "error", "NetStream.Play.StreamNotFound",
+                "Stream live/hevc-cam not found", true, false, ConnectionFailure.UNKNOWN);
+        expect("codec word in status answer", UNKNOWN_FAIL, "status", "NetStream.Publish.Start",
+                "codec hvc1 announced", true, false, ConnectionFailure.UNKNOWN);
+
+        System.out.println("Exact codes and statuses:");
+        expect("auth status", AUTH_FAIL, "error", "NetConnection.Connect.Rejected",
+                "[ AccessManager.Reject ] : [ authmod=adobe ]", true, false, ConnectionFailure.AUTH_REJECTED);
+        expect("publish denied", UNKNOWN_FAIL, "error", ConnectionFailure.CODE_PUBLISH_DENIED,
+                "Publishing not allowed", true, false, ConnectionFailure.AUTH_REJECTED);
+        expect("bad name", UNKNOWN_FAIL, "error", ConnectionFailure.CODE_BAD_NAME,
+                "Already publishing", true, false, ConnectionFailure.STREAM_KEY_IN_USE);
+        expect("codec refused", UNKNOWN_FAIL, "error", "NetStream.Publish.Failed",
+                "Unsupported video codec hvc1.", true, false, ConnectionFailure.CODEC_REJECTED);
+        expect("h.265 refused", UNKNOWN_FAIL, "error", "NetConnection.Connect.Rejected",
+                "H.265 is not supported", true, false, ConnectionFailure.CODEC_REJECTED);
+        expect("dropped while live", CONN_FAIL, null, null, null, true, true, ConnectionFailure.CONNECTION_LOST);
+        expect("closed by server", UNKNOWN_FAIL, "status", "NetStream.Unpublish.Success",
+                "Stream unpublished", true, true, ConnectionFailure.SERVER_CLOSED);
+
+        System.out.println(sOk ? "OK" : "FAILED");
+        System.exit(sOk ? 0 : 1);
+    }
+
+    private static void expect(String name, Streamer.Status status, String level, String code, String description,
+                               boolean reachedServer, boolean recorded, ConnectionFailure expected) {
+        final ConnectionFailure failure = ConnectionFailure.classify(status, level, code, description, reachedServer, recorded);
+        final boolean ok = failure == expected;
+        System.out.printf(Locale.US, "  %-28s %-17s %s%n", name, failure, ok ? "ok" : "FAIL, expected " + expected);
+        sOk &= ok;
+    }
+}
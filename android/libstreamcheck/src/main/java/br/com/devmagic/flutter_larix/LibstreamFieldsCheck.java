@@ -0,0 +1,54 @@
+package br.com.devmagic.flutter_larix;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Resolves private libstream fields KeyFrameRequester depends on, the same way it does on device,
+// and checks the vendored AAR is the one they were verified with. Argument is path to the AAR.
+// Exits with status 1 when a field is gone or retyped, or the AAR hash differs from the pin.
+public final class LibstreamFieldsCheck {
+
+    public static void main(String[] args) throws IOException, NoSuchAlgorithmException {
+        boolean ok = true;
+        try {
+            LibstreamFields.resolve();
+            System.out.println("Streamer." + LibstreamFields.VIDEO_ENCODER + "." + LibstreamFields.CODEC + " ok");
+        } catch (ReflectiveOperationException e) {
+            System.out.println("FAIL: keyframe requests can't reach video encoder: " + e);
+            ok = false;
+        }
+        if (args.length > 0) {
+            final String hash = sha256(args[0]);
+            if (LibstreamFields.VERIFIED_AAR_SHA256.equals(hash)) {
+                System.out.println("AAR matches verified hash");
+            } else {
+                System.out.println("FAIL: " + args[0] + " is " + hash + ", fields were verified with "
+                        + LibstreamFields.VERIFIED_AAR_SHA256
+                        + "; check LibstreamFields against the new build, then update VERIFIED_AAR_SHA256");
+                ok = false;
+            }
+        }
+        System.out.println(ok ? "OK" : "FAILED");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static String sha256(String path) throws IOException, NoSuchAlgorithmException {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = Files.newInputStream(Paths.get(path))) {
+            final byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import com.wmspanel.libstream.Streamer;
+import com.wmspanel.libstream.VideoConfig;
+
+import java.util.ArrayDeque;
+
+// Drives governor rung drops through a running conditioner against SimulatedStreamer,
+// which rejects config changes during capture like libstream does. Encoder restart goes
+// through the same listener sequence as LarixNativeView: release connection, applyVideoConfig(), resumeAt().
+// Exits with status 1 when a drop throws or leaves encoder on the wrong rung.
+public final class GovernorCheck {
+
+    private static final long START_TIME = 1_600_000_000_000L;
+    private static final long TICK = 20;
+    private static final int BITRATE = 6_000_000;
+    private static final int CONNECTION_ID = 1;
+
+    private final VirtualClock mClock = new VirtualClock(START_TIME);
+    private final VirtualScheduler mScheduler = new VirtualScheduler(mClock);
+    private final ArrayDeque<Runnable> mMain = new ArrayDeque<>();
+    private final QualityLadder mLadder = QualityLadder.build(null, new Streamer.Size(1920, 1080), 30, BITRATE, null);
+    private final SimulatedStreamer mStreamer = new SimulatedStreamer(SimulatedStreamer.Protocol.TCP, BITRATE, 1080);
+    private final StreamConditionerBase mConditioner = StreamConditionerRegistry.create(StreamConditionerRegistry.LADDER_ASCEND, null);
+    private int mRestarts;
+    private boolean mOk = true;
+
+    public static void main(String[] args) {
+        boolean ok = new GovernorCheck().run();
+        ok &= capturePreconditionHolds();
+        System.out.println(ok ? "OK" : "FAILED");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private boolean run() {
+        mConditioner.setClock(mClock);
+        mConditioner.setExecutors(mScheduler, mMain::add);
+        mConditioner.addConnection(CONNECTION_ID);
+        final VideoConfig config = new VideoConfig();
+        config.videoSize = mLadder.top().size;
+        mConditioner.setQualityLadder(mLadder, config, (rung, rungConfig, bitrate) -> {
+            mRestarts++;
+            mConditioner.removeConnection(CONNECTION_ID);
+            StreamConditionerBase.applyVideoConfig(mStreamer, rungConfig);
+            mConditioner.addConnection(CONNECTION_ID);
+            if (mConditioner.isRunning()) {
+                mConditioner.resumeAt(mStreamer, mConditioner.getBitrate());
+            }
+        });
+        mConditioner.start(mStreamer, BITRATE);
+        advance(5_000);
+
+        step("governor drops one rung", () -> mConditioner.setGovernorLimits(0, 1.0, 1), 1);
+        step("governor drops two rungs", () -> mConditioner.setGovernorLimits(24, 0.7, 2), 2);
+        step("governor lifts limits", () -> mConditioner.setGovernorLimits(0, 1.0, 0), 2);
+        step("stop restores start rung", mConditioner::stop, 0);
+
+        // Limits set while stopped apply on start
+        mConditioner.setGovernorLimits(0, 1.0, 1);
+        step("start under governor limits", () -> mConditioner.start(mStreamer, BITRATE), 1);
+        mConditioner.stop();
+        drain();
+        mScheduler.shutdown();
+        System.out.println(mRestarts + " encoder restarts");
+        return mOk;
+    }
+
+    // Lifting limits doesn't move encoder up at once, upscale waits for loss free run
+    private void step(String name, Runnable action, int expectedRung) {
+        final int restarts = mRestarts;
+        try {
+            action.run();
+            advance(3_000);
+        } catch (RuntimeException e) {
+            fail(name, e.toString());
+            return;
+        }
+        final int height = mLadder.get(expectedRung).size.height;
+        if (mStreamer.height != height) {
+            fail(name, "encoder at " + mStreamer.height + "p, expected " + height + "p");
+        } else if (!mStreamer.isCapturing()) {
+            fail(name, "capture not restarted");
+        } else if (mConditioner.isRunning() && mConditioner.getRung() != expectedRung) {
+            fail(name, "conditioner at rung " + mConditioner.getRung() + ", expected " + expectedRung);
+        } else {
+            System.out.printf("%-28s ok, %dp, %d restarts%n", name, height, mRestarts - restarts);
+        }
+    }
+
+    private void fail(String name, String reason) {
+        System.out.printf("%-28s FAIL: %s%n", name, reason);
+        mOk = false;
+    }
+
+    private void advance(long duration) {
+        final long end = mClock.now() + duration;
+        while (mClock.now() < end) {
+            mStreamer.advance(mClock.now(), TICK, BITRATE / 1000.0 * 2, 40, 0);
+            mScheduler.runUntil(mClock.now() + TICK);
+            drain();
+        }
+    }
+
+    private void drain() {
+        Simulator.runAll(mMain);
+    }
+
+    // Check above means nothing if the stand-in takes config during capture
+    private static boolean capturePreconditionHolds() {
+        final SimulatedStreamer streamer = new SimulatedStreamer(SimulatedStreamer.Protocol.TCP, BITRATE, 1080);
+        final VideoConfig config = new VideoConfig();
+        config.videoSize = new Streamer.Size(1280, 720);
+        try {
+            streamer.changeVideoConfig(config);
+            System.out.println("FAIL: changeVideoConfig accepted during capture");
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Link conditions over time. CSV columns: time (seconds from start), capacity (kbps),
+// round trip time (ms), packet loss (0.0..1.0). Each row holds until the next one,
+// the last row marks end of the trace. Header and lines starting with '#' are skipped.
+final class NetworkTrace {
+    final String name;
+    final long[] time; // ms
+    final double[] capacity; // kbps
+    final double[] rtt; // ms
+    final double[] loss;
+
+    private NetworkTrace(String name, long[] time, double[] capacity, double[] rtt, double[] loss) {
+        this.name = name;
+        this.time = time;
+        this.capacity = capacity;
+        this.rtt = rtt;
+        this.loss = loss;
+    }
+
+    long duration() {
+        return time[time.length - 1];
+    }
+
+    // Index of the row in effect at given time
+    int indexAt(long ms) {
+        final int pos = Arrays.binarySearch(time, ms);
+        return pos >= 0 ? pos : Math.max(0, -pos - 2);
+    }
+
+    // Either path to CSV file or "synthetic:<step|outage|cellular>"
+    static NetworkTrace parse(String spec) throws IOException {
+        if (spec.startsWith("synthetic:")) {
+            return synthetic(spec.substring("synthetic:".length()));
+        }
+        return load(new File(spec));
+    }
+
+    static NetworkTrace load(File file) throws IOException {
+        final Builder builder = new Builder(file.getName());
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || Character.isLetter(line.charAt(0))) {
+                    continue;
+                }
+                final String[] columns = line.split(",");
+                if (columns.length < 4) {
+                    throw new IOException(file + ":" + lineNumber + ": expected time,capacity,rtt,loss");
+                }
+                try {
+                    builder.add(Double.parseDouble(columns[0].trim()),
+                            Double.parseDouble(columns[1].trim()),
+                            Double.parseDouble(columns[2].trim()),
+                            Double.parseDouble(columns[3].trim()));
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ":" + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    static NetworkTrace synthetic(String name) {
+        final Builder builder = new Builder("synthetic:" + name);
+        switch (name) {
+            case "step":
+                // Capacity drops to a quarter for two minutes
+                builder.add(0, 8000, 60, 0.0);
+                builder.add(60, 2000, 80, 0.0);
+                builder.add(180, 8000, 60, 0.0);
+                builder.add(360, 8000, 60, 0.0);
+                break;
+            case "outage":
+                // Link goes away for 15 seconds
+                builder.add(0, 8000, 60, 0.0);
+                builder.add(60, 0, 60, 1.0);
+                builder.add(75, 8000, 60, 0.0);
+                builder.add(240, 8000, 60, 0.0);
+                break;
+            case "cellular":
+                // Seeded random walk with occasional deep fades, half an hour
+                final Random random = new Random(1);
+                double capacity = 6000;
+                for (int sec = 0; sec < 1800; sec++) {
+                    capacity += (6000 - capacity) * 0.05; // Drifts back to typical LTE uplink
+                    capacity = Math.max(500, Math.min(12000, capacity * (0.9 + 0.2 * random.nextDouble())));
+                    final boolean fade = random.nextDouble() < 0.01;
+                    builder.add(sec, fade ? capacity * 0.2 : capacity,
+                            40 + random.nextInt(60) + (fade ? 150 : 0),
+                            fade ? 0.05 : random.nextDouble() * 0.01);
+                }
+                builder.add(1800, capacity, 60, 0.0);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown synthetic trace " + name + ", use step, outage or cellular");
+        }
+        return builder.build();
+    }
+
+    private static final class Builder {
+        private final String mName;
+        private final List<double[]> mRows = new ArrayList<>();
+
+        Builder(String name) {
+            mName = name;
+        }
+
+        void add(double timeSec, double capacityKbps, double rttMs, double loss) {
+            mRows.add(new double[]{timeSec, capacityKbps, rttMs, loss});
+        }
+
+        NetworkTrace build() {
+            if (mRows.size() < 2) {
+                throw new IllegalArgumentException(mName + ": trace needs at least two rows");
+            }
+            final int size = mRows.size();
+            final long[] time = new long[size];
+            final double[] capacity = new double[size];
+            final double[] rtt = new double[size];
+            final double[] loss = new double[size];
+            for (int i = 0; i < size; i++) {
+                final double[] row = mRows.get(i);
+                time[i] = Math.round(row[0] * 1000);
+                if (i > 0 && time[i] < time[i - 1]) {
+                    throw new IllegalArgumentException(mName + ": time must not go backwards at row " + (i + 1));
+                }
+                capacity[i] = Math.max(0, row[1]);
+                rtt[i] = Math.max(0, row[2]);
+                loss[i] = Math.min(1.0, Math.max(0.0, row[3]));
+            }
+            return new NetworkTrace(mName, time, capacity, rtt, loss);
+        }
+    }
+}
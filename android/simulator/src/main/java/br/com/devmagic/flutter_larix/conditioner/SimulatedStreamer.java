@@ -0,0 +1,218 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import com.wmspanel.libstream.RistStats;
+import com.wmspanel.libstream.SrtStats;
+import com.wmspanel.libstream.Streamer;
+import com.wmspanel.libstream.TcpStats;
+import com.wmspanel.libstream.VideoConfig;
+
+import java.util.ArrayDeque;
+
+// Encoder and single connection over a simulated link.
+// Encoder produces frames at current bitrate, link drains send queue at trace capacity.
+// TCP (RTMP/RTSP) skips new frames when queue is longer than send buffer,
+// SRT and RIST drop queued frames which waited longer than latency.
+class SimulatedStreamer extends Streamer {
+
+    enum Protocol { TCP, SRT, RIST }
+
+    static final double FPS = 30.0;
+    static final long TCP_BUFFER_MS = 2000;
+    static final int SRT_LATENCY_MS = 2000;
+    static final int PACKET_SIZE = 1316;
+    static final int SRT_HEADER_SIZE = 44;
+
+    private static final class Frame {
+        final long time;
+        double bits; // Not yet sent
+
+        Frame(long time, double bits) {
+            this.time = time;
+            this.bits = bits;
+        }
+    }
+
+    private final Protocol mProtocol;
+    private final ArrayDeque<Frame> mQueue = new ArrayDeque<>();
+    private double mQueueBits;
+    private double mFrameCredit;
+
+    int bitrate;
+    int bitrateChanges;
+    int oscillations;
+    private int mLastDirection;
+    // Encoder frame height, changed by resolution switching
+    int height;
+    int resolutionChanges;
+    // Camera feeds encoder, libstream only takes new video config while it doesn't
+    private boolean mCapturing = true;
+
+    // Current link state
+    double capacityKbps;
+    double baseRttMs;
+    double loss;
+
+    long framesEncoded;
+    long framesLost;
+    long packetsDropped;
+    double bitsSent;
+
+    SimulatedStreamer(Protocol protocol, int bitrate, int height) {
+        mProtocol = protocol;
+        this.bitrate = bitrate;
+        this.height = height;
+    }
+
+    // Goodput of the link, kbps
+    double effectiveCapacity() {
+        return capacityKbps * (1.0 - loss);
+    }
+
+    double queueDelayMs() {
+        final double capacity = effectiveCapacity();
+        if (mQueueBits <= 0) {
+            return 0;
+        }
+        return capacity > 0 ? mQueueBits / capacity : Double.MAX_VALUE;
+    }
+
+    void advance(long now, long dt, double capacityKbps, double rttMs, double loss) {
+        this.capacityKbps = capacityKbps;
+        this.baseRttMs = rttMs;
+        this.loss = loss;
+
+        mFrameCredit += mCapturing ? FPS * dt / 1000.0 : 0;
+        while (mFrameCredit >= 1.0) {
+            mFrameCredit -= 1.0;
+            encodeFrame(now);
+        }
+
+        double budget = effectiveCapacity() * dt; // kbps * ms = bits
+        while (budget > 0 && !mQueue.isEmpty()) {
+            final Frame head = mQueue.peekFirst();
+            final double sent = Math.min(budget, head.bits);
+            head.bits -= sent;
+            budget -= sent;
+            mQueueBits -= sent;
+            bitsSent += sent;
+            if (head.bits <= 0) {
+                mQueue.pollFirst();
+            }
+        }
+
+        if (mProtocol != Protocol.TCP) {
+            // Too late to be played, sender drops it
+            while (!mQueue.isEmpty() && now + dt - mQueue.peekFirst().time > SRT_LATENCY_MS) {
+                final Frame frame = mQueue.pollFirst();
+                mQueueBits -= frame.bits;
+                packetsDropped += (long) Math.ceil(frame.bits / 8 / PACKET_SIZE);
+                framesLost++;
+            }
+        }
+    }
+
+    private void encodeFrame(long now) {
+        framesEncoded++;
+        final double bits = bitrate / FPS;
+        if (mProtocol == Protocol.TCP && queueDelayMs() > TCP_BUFFER_MS) {
+            framesLost++;
+            return;
+        }
+        mQueue.addLast(new Frame(now, bits));
+        mQueueBits += bits;
+    }
+
+    boolean isCapturing() {
+        return mCapturing;
+    }
+
+    @Override
+    public void startVideoCapture() {
+        mCapturing = true;
+    }
+
+    @Override
+    public void stopVideoCapture() {
+        mCapturing = false;
+        mFrameCredit = 0;
+    }
+
+    @Override
+    public void changeBitRate(int bitrate) {
+        final int direction = Integer.compare(bitrate, this.bitrate);
+        if (direction == 0) {
+            return;
+        }
+        if (mLastDirection != 0 && direction != mLastDirection) {
+            oscillations++;
+        }
+        mLastDirection = direction;
+        bitrateChanges++;
+        this.bitrate = bitrate;
+    }
+
+    @Override
+    public void changeFpsRange(FpsRange range) {
+    }
+
+    // Same precondition as Streamer.changeVideoConfig(), frames already queued keep their size
+    @Override
+    public void changeVideoConfig(VideoConfig config) {
+        if (mCapturing) {
+            throw new IllegalStateException("Stop video capture to change config");
+        }
+        if (config.videoSize != null && config.videoSize.height != height) {
+            height = config.videoSize.height;
+            resolutionChanges++;
+        }
+        changeBitRate(config.bitRate);
+    }
+
+    private long bytesSent() {
+        return (long) (bitsSent / 8);
+    }
+
+    @Override
+    public TcpStats getTcpStats(int connectionId) {
+        if (mProtocol != Protocol.TCP) {
+            return null;
+        }
+        final TcpStats stats = new TcpStats();
+        stats.bytesSent = bytesSent();
+        stats.videoFramesSent = framesEncoded - framesLost;
+        stats.videoFramesSkipped = framesLost;
+        return stats;
+    }
+
+    @Override
+    public SrtStats getSrtStats(int connectionId) {
+        if (mProtocol != Protocol.SRT) {
+            return null;
+        }
+        final SrtStats stats = new SrtStats();
+        final long packets = bytesSent() / PACKET_SIZE;
+        stats.pktSentUnique = packets;
+        stats.byteSentUnique = bytesSent() + packets * SRT_HEADER_SIZE;
+        stats.mbpsBandwidth = effectiveCapacity() / 1000.0;
+        stats.msRTT = baseRttMs + Math.min(queueDelayMs(), SRT_LATENCY_MS);
+        stats.msSndBuf = (int) Math.min(queueDelayMs(), SRT_LATENCY_MS);
+        stats.msSndTsbPdDelay = SRT_LATENCY_MS;
+        // Conditioners treat it as a growing counter
+        stats.pktSndDrop = (int) packetsDropped;
+        return stats;
+    }
+
+    @Override
+    public RistStats getRistStats(int connectionId) {
+        if (mProtocol != Protocol.RIST) {
+            return null;
+        }
+        final RistStats stats = new RistStats();
+        stats.sent = bytesSent() / PACKET_SIZE;
+        stats.bandwidth = (int) (effectiveCapacity() * 1000);
+        // Queue close to latency means drops are coming
+        stats.quality = Math.max(0, 100.0 * (1.0 - loss) - (queueDelayMs() > SRT_LATENCY_MS / 2 ? 20 : 0));
+        stats.rtt = (int) (baseRttMs + Math.min(queueDelayMs(), SRT_LATENCY_MS));
+        return stats;
+    }
+}
@@ -0,0 +1,107 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import java.util.Locale;
+
+// Metrics of one controller over one trace.
+// Overload episode starts when encoder bitrate exceeds link goodput and ends when bitrate fits
+// and send queue is drained, its length is time-to-recover.
+final class SimulationResult {
+    private static final double DRAINED_QUEUE_MS = 200;
+
+    final String strategy;
+    long durationMs;
+    double encoderBitsTotal; // bitrate * ms
+    double capacityBitsTotal;
+    double bitsSent;
+    long framesEncoded;
+    long framesLost;
+    int bitrateChanges;
+    int oscillations;
+    int resolutionChanges;
+    double heightTotal; // height * ms
+
+    int episodes;
+    int unrecovered;
+    long recoverTotalMs;
+    long recoverMaxMs;
+    private long mEpisodeStart = -1;
+
+    SimulationResult(String strategy) {
+        this.strategy = strategy;
+    }
+
+    void sample(long now, long dt, SimulatedStreamer streamer) {
+        durationMs += dt;
+        encoderBitsTotal += (double) streamer.bitrate * dt;
+        heightTotal += (double) streamer.height * dt;
+        capacityBitsTotal += streamer.effectiveCapacity() * 1000 * dt;
+
+        final boolean overloaded = streamer.bitrate > streamer.effectiveCapacity() * 1000;
+        if (mEpisodeStart < 0 && overloaded) {
+            mEpisodeStart = now;
+            episodes++;
+        } else if (mEpisodeStart >= 0 && !overloaded && streamer.queueDelayMs() < DRAINED_QUEUE_MS) {
+            final long recover = now - mEpisodeStart;
+            recoverTotalMs += recover;
+            recoverMaxMs = Math.max(recoverMaxMs, recover);
+            mEpisodeStart = -1;
+        }
+    }
+
+    void finish(SimulatedStreamer streamer) {
+        if (mEpisodeStart >= 0) {
+            unrecovered++;
+        }
+        bitsSent = streamer.bitsSent;
+        framesEncoded = streamer.framesEncoded;
+        framesLost = streamer.framesLost;
+        bitrateChanges = streamer.bitrateChanges;
+        oscillations = streamer.oscillations;
+        resolutionChanges = streamer.resolutionChanges;
+    }
+
+    double achievedKbps() {
+        return durationMs > 0 ? bitsSent / durationMs : 0;
+    }
+
+    double encoderKbps() {
+        return durationMs > 0 ? encoderBitsTotal / durationMs / 1000 : 0;
+    }
+
+    double capacityKbps() {
+        return durationMs > 0 ? capacityBitsTotal / durationMs / 1000 : 0;
+    }
+
+    double meanRecoverSec() {
+        final int recovered = episodes - unrecovered;
+        return recovered > 0 ? recoverTotalMs / 1000.0 / recovered : 0;
+    }
+
+    double meanHeight() {
+        return durationMs > 0 ? heightTotal / durationMs : 0;
+    }
+
+    static String header() {
+        return String.format(Locale.US, "%-10s %10s %10s %8s %10s %8s %9s %9s %8s %8s %8s %8s",
+                "strategy", "sent kbps", "enc kbps", "util %", "lost", "lost %",
+                "episodes", "ttr avg s", "ttr max", "osc", "res chg", "avg h");
+    }
+
+    @Override
+    public String toString() {
+        final double capacity = capacityKbps();
+        return String.format(Locale.US, "%-10s %10.0f %10.0f %8.1f %10d %8.2f %9s %9.1f %8.1f %8d %8d %8.0f",
+                strategy,
+                achievedKbps(),
+                encoderKbps(),
+                capacity > 0 ? 100.0 * achievedKbps() / capacity : 0,
+                framesLost,
+                framesEncoded > 0 ? 100.0 * framesLost / framesEncoded : 0,
+                unrecovered > 0 ? episodes + "(" + unrecovered + "!)" : String.valueOf(episodes),
+                meanRecoverSec(),
+                recoverMaxMs / 1000.0,
+                oscillations,
+                resolutionChanges,
+                meanHeight());
+    }
+}
@@ -0,0 +1,177 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import com.wmspanel.libstream.Streamer;
+import com.wmspanel.libstream.VideoConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Replays network trace through bitrate conditioners on virtual time.
+// Conditioner runs unmodified: its own check task polls SimulatedStreamer statistics
+// through VirtualScheduler, so results are deterministic and take seconds for hours of trace.
+// Streamer calls posted to main thread run between ticks, resolution switches restart
+// capture and reopen the connection the way LarixNativeView does.
+//
+// Options:
+//   --trace <file.csv|synthetic:step|synthetic:outage|synthetic:cellular>
+//   --strategy <name[,name...]>   registered conditioner names, all by default
+//   --protocol <tcp|srt|rist>     tcp by default
+//   --bitrate <bps>               configured video bitrate, 6000000 by default
+//   --timeline <dir>              writes <strategy>.csv with per-second bitrate, capacity and loss
+//   --ladder                      lets conditioner switch 1080p encoder between standard ladder rungs
+public final class Simulator {
+
+    private static final long START_TIME = 1_600_000_000_000L;
+    private static final long TICK = 20;
+    private static final long TIMELINE_INTERVAL = 1000;
+    private static final int CONNECTION_ID = 1;
+
+    private final NetworkTrace mTrace;
+    private final SimulatedStreamer.Protocol mProtocol;
+    private final int mBitrate;
+    private final QualityLadder mLadder;
+
+    Simulator(NetworkTrace trace, SimulatedStreamer.Protocol protocol, int bitrate, boolean ladder) {
+        mTrace = trace;
+        mProtocol = protocol;
+        mBitrate = bitrate;
+        mLadder = ladder ? QualityLadder.build(null, new Streamer.Size(1920, 1080), 30, bitrate, null) : null;
+    }
+
+    SimulationResult run(String strategy, PrintWriter timeline) {
+        final VirtualClock clock = new VirtualClock(START_TIME);
+        final VirtualScheduler scheduler = new VirtualScheduler(clock);
+        final SimulatedStreamer streamer = new SimulatedStreamer(mProtocol, mBitrate, 1080);
+        final StreamConditionerBase conditioner = StreamConditionerRegistry.create(strategy, null);
+        if (conditioner == null) {
+            throw new IllegalArgumentException("Unknown strategy " + strategy);
+        }
+        final ArrayDeque<Runnable> main = new ArrayDeque<>();
+        conditioner.setClock(clock);
+        conditioner.setExecutors(scheduler, main::add);
+        conditioner.addConnection(CONNECTION_ID);
+        if (mLadder != null) {
+            final VideoConfig config = new VideoConfig();
+            config.videoSize = mLadder.top().size;
+            conditioner.setQualityLadder(mLadder, config, (rung, rungConfig, bitrate) -> {
+                conditioner.removeConnection(CONNECTION_ID);
+                StreamConditionerBase.applyVideoConfig(streamer, rungConfig);
+                conditioner.addConnection(CONNECTION_ID);
+                if (conditioner.isRunning()) {
+                    conditioner.resumeAt(streamer, conditioner.getBitrate());
+                }
+            });
+        }
+        conditioner.start(streamer, mBitrate);
+
+        final SimulationResult result = new SimulationResult(strategy);
+        if (timeline != null) {
+            timeline.println("time,capacity_kbps,bitrate_kbps,queue_ms,frames_lost,height");
+        }
+        final long end = START_TIME + mTrace.duration();
+        long nextTimeline = START_TIME;
+        while (clock.now() < end) {
+            final long now = clock.now();
+            final int row = mTrace.indexAt(now - START_TIME);
+            streamer.advance(now, TICK, mTrace.capacity[row], mTrace.rtt[row], mTrace.loss[row]);
+            result.sample(now, TICK, streamer);
+            if (timeline != null && now >= nextTimeline) {
+                timeline.printf(Locale.US, "%.1f,%.0f,%.0f,%.0f,%d,%d%n",
+                        (now - START_TIME) / 1000.0, streamer.effectiveCapacity(), streamer.bitrate / 1000.0,
+                        Math.min(streamer.queueDelayMs(), 99_999), streamer.framesLost, streamer.height);
+                nextTimeline += TIMELINE_INTERVAL;
+            }
+            scheduler.runUntil(now + TICK);
+            runAll(main);
+        }
+        conditioner.stop();
+        runAll(main);
+        scheduler.shutdown();
+        result.finish(streamer);
+        return result;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String traceSpec = "synthetic:step";
+        List<String> strategies = new ArrayList<>(StreamConditionerRegistry.names());
+        String protocol = "tcp";
+        int bitrate = 6_000_000;
+        File timelineDir = null;
+        boolean ladder = false;
+
+        for (int i = 0; i < args.length; i++) {
+            final String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--trace":
+                    traceSpec = require(args[i], value);
+                    break;
+                case "--strategy":
+                    strategies = Arrays.asList(require(args[i], value).split(","));
+                    break;
+                case "--protocol":
+                    protocol = require(args[i], value);
+                    break;
+                case "--bitrate":
+                    bitrate = Integer.parseInt(require(args[i], value));
+                    break;
+                case "--timeline":
+                    timelineDir = new File(require(args[i], value));
+                    break;
+                case "--ladder":
+                    ladder = true;
+                    continue;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+            i++;
+        }
+
+        final NetworkTrace trace = NetworkTrace.parse(traceSpec);
+        final Simulator simulator = new Simulator(trace,
+                SimulatedStreamer.Protocol.valueOf(protocol.toUpperCase(Locale.US)), bitrate, ladder);
+        if (timelineDir != null && !timelineDir.isDirectory() && !timelineDir.mkdirs()) {
+            throw new IOException("Can't create " + timelineDir);
+        }
+
+        System.out.printf(Locale.US, "%s, %s, %.0f s, %d kbps configured%n",
+                trace.name, protocol, trace.duration() / 1000.0, bitrate / 1000);
+        System.out.println(SimulationResult.header());
+        for (String strategy : strategies) {
+            final String name = strategy.trim();
+            if (StreamConditionerRegistry.AUTO.equals(name)) {
+                continue;
+            }
+            PrintWriter timeline = null;
+            try {
+                if (timelineDir != null) {
+                    timeline = new PrintWriter(new File(timelineDir, name + ".csv"), "UTF-8");
+                }
+                System.out.println(simulator.run(name, timeline));
+            } finally {
+                if (timeline != null) {
+                    timeline.close();
+                }
+            }
+        }
+    }
+
+    static void runAll(ArrayDeque<Runnable> queue) {
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static String require(String option, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException(option + " needs a value");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+final class VirtualClock implements Clock {
+    long time;
+
+    VirtualClock(long start) {
+        time = start;
+    }
+
+    @Override
+    public long now() {
+        return time;
+    }
+
+    void advance(long ms) {
+        time += ms;
+    }
+}
@@ -0,0 +1,191 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Single threaded scheduler on virtual time. execute() runs task inline,
+// delayed and periodic tasks fire from runUntil() in time order with clock set to their due time.
+final class VirtualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final VirtualClock mClock;
+    private final PriorityQueue<Task<?>> mQueue = new PriorityQueue<>();
+    private long mSequence;
+    private boolean mShutdown;
+
+    VirtualScheduler(VirtualClock clock) {
+        mClock = clock;
+    }
+
+    void runUntil(long time) {
+        Task<?> task;
+        while ((task = mQueue.peek()) != null && task.time <= time) {
+            mQueue.poll();
+            if (task.isCancelled()) {
+                continue;
+            }
+            mClock.time = Math.max(mClock.time, task.time);
+            task.fire();
+        }
+        mClock.time = Math.max(mClock.time, time);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        command.run();
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return add(new Task<>(() -> {
+            command.run();
+            return null;
+        }, unit.toMillis(delay), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return add(new Task<>(callable, unit.toMillis(delay), 0));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        return add(new Task<>(() -> {
+            command.run();
+            return null;
+        }, unit.toMillis(initialDelay), Math.max(1, unit.toMillis(period))));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        return add(new Task<>(() -> {
+            command.run();
+            return null;
+        }, unit.toMillis(initialDelay), -Math.max(1, unit.toMillis(delay))));
+    }
+
+    private <V> Task<V> add(Task<V> task) {
+        mQueue.add(task);
+        return task;
+    }
+
+    @Override
+    public void shutdown() {
+        mShutdown = true;
+        mQueue.clear();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return mShutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return mShutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return mShutdown;
+    }
+
+    // Period > 0 is fixed rate, < 0 is fixed delay, 0 is one shot
+    private final class Task<V> implements ScheduledFuture<V> {
+        private final Callable<V> mCallable;
+        private final long mPeriod;
+        long time;
+        private long mSeq;
+        private boolean mCancelled;
+        private boolean mDone;
+        private V mResult;
+
+        Task(Callable<V> callable, long delay, long period) {
+            mCallable = callable;
+            mPeriod = period;
+            time = mClock.now() + Math.max(0, delay);
+            mSeq = mSequence++;
+        }
+
+        void fire() {
+            try {
+                mResult = mCallable.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            if (mPeriod == 0) {
+                mDone = true;
+                return;
+            }
+            if (mCancelled) {
+                return;
+            }
+            time = mPeriod > 0 ? time + mPeriod : mClock.now() - mPeriod;
+            mSeq = mSequence++;
+            mQueue.add(this);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - mClock.now(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            final Task<?> task = (Task<?>) other;
+            if (time != task.time) {
+                return Long.compare(time, task.time);
+            }
+            return Long.compare(mSeq, task.mSeq);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (mDone) {
+                return false;
+            }
+            mCancelled = true;
+            mQueue.remove(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return mCancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return mDone || mCancelled;
+        }
+
+        @Override
+        public V get() {
+            if (!mDone) {
+                throw new IllegalStateException("Task has not run yet, advance virtual time first");
+            }
+            return mResult;
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws TimeoutException {
+            if (!mDone) {
+                throw new TimeoutException();
+            }
+            return mResult;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package br.com.devmagic.flutter_larix;
+
+import com.wmspanel.libstream.Streamer;
+
+import org.json.JSONObject;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Why a connection went DISCONNECTED, from Streamer status and the info object it comes with.
+// libstream fills info only for RTMP, from the last onStatus or _error answer: "level", "code"
+// and "description". SRT, RIST and RTSP get an empty object, status and progress is all there is.
+// Only exact codes and statuses pick a category which retries less; anything else stays retryable.
+enum ConnectionFailure {
+    // Server refused credentials or stream key, same request will be refused again
+    AUTH_REJECTED(Retry.NEVER),
+    // Server already has a publisher on this key, usually our own previous session until it times out
+    STREAM_KEY_IN_USE(Retry.SLOW),
+    // Server refused the video codec, stream goes on with H.264 unless it already was
+    CODEC_REJECTED(Retry.FAST),
+    // Connect failed before any answer from server
+    HOST_UNREACHABLE(Retry.FAST),
+    // Server answered, but handshake didn't get to publishing
+    TIMEOUT(Retry.FAST),
+    // Server ended a stream it had accepted
+    SERVER_CLOSED(Retry.NORMAL),
+    // Network dropped under an accepted stream
+    CONNECTION_LOST(Retry.FAST),
+    UNKNOWN(Retry.NORMAL);
+
+    enum Retry {
+        // Transient network error, first attempt goes right away
+        FAST,
+        NORMAL,
+        // Few attempts, spaced for server side state to expire
+        SLOW,
+        NEVER
+    }
+
+    // RTMP onStatus codes, same on nginx-rtmp, SRS and Wowza
+    static final String CODE_BAD_NAME = "NetStream.Publish.BadName";
+    static final String CODE_PUBLISH_DENIED = "NetStream.Publish.Denied";
+
+    // Whole words of RTMP error description, not part of a path or stream name like "live/hevc-cam"
+    private static final Pattern CODEC_WORDS = Pattern.compile("(?<![\\w/.-])(codecs?|hevc|h\\.?265|hvc1|av1|av01)(?![\\w/-]|\\.\\w)");
+
+    final Retry retry;
+
+    ConnectionFailure(Retry retry) {
+        this.retry = retry;
+    }
+
+    // reachedServer: current connection got through handshake; recorded: it got to RECORD, server accepted the stream
+    static ConnectionFailure classify(Streamer.Status status, JSONObject info, boolean reachedServer, boolean recorded) {
+        if (info == null) {
+            return classify(status, null, null, null, reachedServer, recorded);
+        }
+        return classify(status, info.optString("level", null), info.optString("code", null),
+                info.optString("description", null), reachedServer, recorded);
+    }
+
+    // Fields of RTMP answer are null when there was none
+    static ConnectionFailure classify(Streamer.Status status, String level, String code, String description,
+                                      boolean reachedServer, boolean recorded) {
+        // libstream sets AUTH_FAIL once server refused credentials after its auth exchange
+        if (status == Streamer.Status.AUTH_FAIL || CODE_PUBLISH_DENIED.equals(code)) {
+            return AUTH_REJECTED;
+        }
+        if (CODE_BAD_NAME.equals(code)) {
+            return STREAM_KEY_IN_USE;
+        }
+        if (isCodecRejection(level, description)) {
+            return CODEC_REJECTED;
+        }
+        if (recorded) {
+            return status == Streamer.Status.CONN_FAIL ? CONNECTION_LOST : SERVER_CLOSED;
+        }
+        if (status == Streamer.Status.CONN_FAIL) {
+            return reachedServer ? TIMEOUT : HOST_UNREACHABLE;
+        }
+        // E.g. NetConnection.Connect.Rejected without auth status, servers use it for many reasons
+        return UNKNOWN;
+    }
+
+    // RTMP error answer which names the codec
+    static boolean isCodecRejection(String level, String description) {
+        return "error".equals(level) && description != null
+                && CODEC_WORDS.matcher(description.toLowerCase(Locale.US)).find();
+    }
+}
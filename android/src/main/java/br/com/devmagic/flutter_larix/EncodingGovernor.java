@@ -0,0 +1,195 @@
+package br.com.devmagic.flutter_larix;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.PowerManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import br.com.devmagic.flutter_larix.libcommon.PlatformUtils;
+import io.flutter.Log;
+
+// Lowers encoding load as device heats up or battery runs out.
+// Level comes from PowerManager thermal status (battery temperature before Android 10) and battery level,
+// each level caps fps, bitrate and quality ladder rung. Runs on the shared scheduler thread.
+// Level goes up at once but comes down only after it stayed lower for COOL_DOWN,
+// so limits don't flap around a thermal threshold.
+class EncodingGovernor {
+    private static final String TAG = "EncodingGovernor";
+
+    static final long POLL_INTERVAL = 30_000;
+    static final long COOL_DOWN = 60_000;
+
+    static final int LEVEL_NONE = 0;
+    static final int LEVEL_LIGHT = 1;
+    static final int LEVEL_MODERATE = 2;
+    static final int LEVEL_SEVERE = 3;
+
+    // Per level: fps cap (0 for none), bitrate as part of full one, ladder rungs to drop
+    static final int[] MAX_FPS = {0, 0, 24, 15};
+    static final double[] BITRATE_FRAC = {1.0, 0.85, 0.7, 0.5};
+    static final int[] RUNG_DROP = {0, 0, 1, 2};
+
+    // Battery temperature thresholds for LIGHT, MODERATE and SEVERE, Celsius
+    private static final double[] BATTERY_TEMPERATURE = {42.0, 45.0, 48.0};
+    private static final double BATTERY_LOW = 0.15;
+
+    // Called on scheduler thread with new limits
+    interface Listener {
+        void onGovernorChanged(EncodingGovernor governor);
+    }
+
+    private final Context mContext;
+    private final ScheduledExecutorService mScheduler;
+    private final Listener mListener;
+    private final PowerManager mPowerManager;
+    private PowerManager.OnThermalStatusChangedListener mThermalListener;
+    private ScheduledFuture<?> mPollTask;
+
+    // Read by limit getters from any thread
+    private volatile int mLevel = LEVEL_NONE;
+    // Scheduler thread only
+    private int mPendingLevel = LEVEL_NONE;
+    private long mPendingSince;
+    private int mThermalStatus = -1;
+    private double mBatteryLevel = -1;
+    private boolean mCharging;
+    private double mTemperature = Double.NaN;
+    private String mReason = "none";
+
+    EncodingGovernor(Context context, ScheduledExecutorService scheduler, Listener listener) {
+        mContext = context;
+        mScheduler = scheduler;
+        mListener = listener;
+        mPowerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+    }
+
+    void start() {
+        mScheduler.execute(() -> {
+            if (mPollTask != null) {
+                return;
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && mPowerManager != null) {
+                mThermalListener = status -> {
+                    mThermalStatus = status;
+                    evaluate();
+                };
+                mPowerManager.addThermalStatusListener(mScheduler, mThermalListener);
+            }
+            mPollTask = mScheduler.scheduleWithFixedDelay(this::poll, 0, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    void stop() {
+        mScheduler.execute(() -> {
+            if (mPollTask != null) {
+                mPollTask.cancel(false);
+                mPollTask = null;
+            }
+            if (mThermalListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                mPowerManager.removeThermalStatusListener(mThermalListener);
+                mThermalListener = null;
+            }
+        });
+    }
+
+    private void poll() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && mPowerManager != null) {
+            mThermalStatus = mPowerManager.getCurrentThermalStatus();
+        } else {
+            mTemperature = PlatformUtils.batteryTemperature(mContext);
+        }
+        mBatteryLevel = PlatformUtils.batteryLevel(mContext);
+        mCharging = PlatformUtils.isCharging(mContext);
+        evaluate();
+    }
+
+    private void evaluate() {
+        int level = LEVEL_NONE;
+        String reason = "none";
+        if (mThermalStatus >= 0) {
+            final int thermal = thermalLevel(mThermalStatus);
+            if (thermal > level) {
+                level = thermal;
+                reason = "thermal";
+            }
+        } else if (!Double.isNaN(mTemperature)) {
+            for (int i = BATTERY_TEMPERATURE.length - 1; i >= 0; i--) {
+                if (mTemperature >= BATTERY_TEMPERATURE[i] && i + 1 > level) {
+                    level = i + 1;
+                    reason = "thermal";
+                    break;
+                }
+            }
+        }
+        if (!mCharging && mBatteryLevel >= 0) {
+            final int battery = PlatformUtils.isBatteryLevelCritical(mContext) ? LEVEL_SEVERE
+                    : mBatteryLevel < BATTERY_LOW ? LEVEL_LIGHT : LEVEL_NONE;
+            if (battery > level) {
+                level = battery;
+                reason = "battery";
+            }
+        }
+
+        final long now = System.currentTimeMillis();
+        if (level < mLevel) {
+            if (mPendingLevel != level || mPendingSince == 0) {
+                mPendingLevel = level;
+                mPendingSince = now;
+            }
+            if (now - mPendingSince < COOL_DOWN) {
+                return;
+            }
+        }
+        mPendingSince = 0;
+        if (level == mLevel && reason.equals(mReason)) {
+            return;
+        }
+        Log.d(TAG, "Level " + mLevel + " -> " + level + " (" + reason + ")");
+        mLevel = level;
+        mReason = reason;
+        mListener.onGovernorChanged(this);
+    }
+
+    static int thermalLevel(int status) {
+        switch (status) {
+            case PowerManager.THERMAL_STATUS_NONE:
+                return LEVEL_NONE;
+            case PowerManager.THERMAL_STATUS_LIGHT:
+                return LEVEL_LIGHT;
+            case PowerManager.THERMAL_STATUS_MODERATE:
+                return LEVEL_MODERATE;
+            default:
+                return LEVEL_SEVERE;
+        }
+    }
+
+    int maxFps() {
+        return MAX_FPS[mLevel];
+    }
+
+    double bitrateFrac() {
+        return BITRATE_FRAC[mLevel];
+    }
+
+    int rungDrop() {
+        return RUNG_DROP[mLevel];
+    }
+
+    Map<String, Object> toMap() {
+        final Map<String, Object> data = new HashMap<>();
+        data.put("level", mLevel);
+        data.put("reason", mReason);
+        data.put("thermalStatus", mThermalStatus);
+        data.put("batteryLevel", mBatteryLevel);
+        data.put("charging", mCharging);
+        data.put("maxFps", maxFps());
+        data.put("bitrateFrac", bitrateFrac());
+        data.put("rungDrop", rungDrop());
+        return data;
+    }
+}
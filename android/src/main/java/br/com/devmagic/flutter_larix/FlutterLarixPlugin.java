@@ -1,6 +1,11 @@
 package br.com.devmagic.flutter_larix;
 
 import android.app.Activity;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -14,6 +19,14 @@ import io.flutter.plugin.common.MethodChannel;
 import io.flutter.plugin.common.MethodChannel.MethodCallHandler;
 import io.flutter.plugin.common.MethodChannel.Result;
 
+import br.com.devmagic.flutter_larix.upload.UploadItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
 /** FlutterLarixPlugin */
 public class FlutterLarixPlugin implements FlutterPlugin, ActivityAware {
   /// The MethodChannel that will the communication between Flutter and native Android
@@ -24,18 +37,98 @@ public class FlutterLarixPlugin implements FlutterPlugin, ActivityAware {
 
   private @Nullable FlutterPluginBinding flutterPluginBinding;
 
+  /// Single background thread for statistics polling and bitrate control of all views
+  private @Nullable ScheduledExecutorService scheduler;
+
+  /// Plugin-wide calls which don't need a platform view, e.g. prewarm
+  private @Nullable MethodChannel pluginChannel;
+
+  /// Telemetry channel has a fixed name, so all views share one; the newest view samples it
+  private @Nullable StatsTelemetry telemetry;
+
   final String VIEW_TYPE_ID = "br.com.devmagic.flutter_larix/nativeview";
+  final String PLUGIN_CHANNEL = "br.com.devmagic.flutter_larix/plugin";
 
   @Override
   public void onAttachedToEngine(@NonNull FlutterPluginBinding flutterPluginBinding) {
     this.flutterPluginBinding = flutterPluginBinding;
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "LarixStats");
+      thread.setDaemon(true);
+      return thread;
+    });
+    telemetry = new StatsTelemetry(flutterPluginBinding.getBinaryMessenger(),
+            new Handler(Looper.getMainLooper()), scheduler);
+    final Context context = flutterPluginBinding.getApplicationContext();
+    pluginChannel = new MethodChannel(flutterPluginBinding.getBinaryMessenger(), PLUGIN_CHANNEL);
+    pluginChannel.setMethodCallHandler((call, result) -> onPluginMethodCall(context, call, result));
+    LarixUploads.addListener(uploadListener);
+    if (isPrewarmEnabled(context)) {
+      LarixPrewarm.start(context, null);
+    }
+  }
+
+  private void onPluginMethodCall(Context context, MethodCall call, Result result) {
+    switch (call.method) {
+      case "prewarm":
+        LarixPrewarm.start(context, result::success);
+        break;
+      case "configureUploads": {
+        final Number chunkSize = call.argument("chunkSize");
+        final Number maxParallel = call.argument("maxParallel");
+        final Map<String, String> headers = call.argument("headers");
+        LarixUploads.get(context).configure(call.argument("endpoint"), headers,
+                chunkSize != null ? chunkSize.intValue() : 0, maxParallel != null ? maxParallel.intValue() : 0);
+        result.success(null);
+        break;
+      }
+      case "enqueueUpload":
+        result.success(LarixUploads.get(context).enqueue(call.argument("uri"), call.argument("name")));
+        break;
+      case "removeUpload": {
+        final Number id = call.arguments();
+        result.success(id != null && LarixUploads.get(context).remove(id.longValue()));
+        break;
+      }
+      case "retryUploads":
+        LarixUploads.get(context).retryFailed();
+        result.success(null);
+        break;
+      case "getUploads": {
+        final List<Map<String, Object>> items = new ArrayList<>();
+        for (UploadItem item : LarixUploads.get(context).items()) {
+          items.add(item.toMap());
+        }
+        result.success(items);
+        break;
+      }
+      default:
+        result.notImplemented();
+    }
+  }
+
+  private final LarixUploads.Listener uploadListener = item -> {
+    if (pluginChannel != null) {
+      pluginChannel.invokeMethod("uploadChanged", item.toMap());
+    }
+  };
+
+  /// Opt-in with <meta-data android:name="br.com.devmagic.flutter_larix.PREWARM" android:value="true"/>
+  private static boolean isPrewarmEnabled(Context context) {
+    try {
+      final ApplicationInfo info = context.getPackageManager()
+              .getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA);
+      return info.metaData != null && info.metaData.getBoolean(LarixPrewarm.META_DATA_KEY, false);
+    } catch (PackageManager.NameNotFoundException e) {
+      return false;
+    }
   }
 
   private void bind(ActivityPluginBinding activityPluginBinding) {
     activity = activityPluginBinding.getActivity();
     flutterPluginBinding.getPlatformViewRegistry().registerViewFactory(
             VIEW_TYPE_ID,
-            new LarixNativeViewFactory(flutterPluginBinding.getBinaryMessenger(), activityPluginBinding::addRequestPermissionsResultListener, activity));
+            new LarixNativeViewFactory(flutterPluginBinding.getBinaryMessenger(), activityPluginBinding::addRequestPermissionsResultListener, activity, scheduler, telemetry));
   }
 
   @Override
@@ -51,6 +144,19 @@ public class FlutterLarixPlugin implements FlutterPlugin, ActivityAware {
   @Override
   public void onDetachedFromEngine(@NonNull FlutterPluginBinding binding) {
     this.flutterPluginBinding = null;
+    LarixUploads.removeListener(uploadListener);
+    if (pluginChannel != null) {
+      pluginChannel.setMethodCallHandler(null);
+      pluginChannel = null;
+    }
+    if (telemetry != null) {
+      telemetry.release();
+      telemetry = null;
+    }
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
   }
 
   @Override
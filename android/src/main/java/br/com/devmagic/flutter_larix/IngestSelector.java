@@ -0,0 +1,219 @@
+package br.com.devmagic.flutter_larix;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import br.com.devmagic.flutter_larix.libcommon.UriResult;
+import io.flutter.Log;
+
+// Picks primary ingest from an ordered list of candidates, e.g. the same service in several regions.
+// All candidates are probed in parallel (DNS, plus TCP connect for RTMP) and healthy ones are ranked
+// by connect time; SRT/RIST can't be timed without their handshake, so they keep list order after
+// timed ones. On repeated failures the view moves on to the next candidate in ranking.
+// Main thread only, except probes.
+class IngestSelector {
+    private static final String TAG = "IngestSelector";
+
+    // Ranking older than this is probed again before stream starts
+    static final long RANKING_TTL = 60_000;
+    // Failed reconnects to a candidate before moving to the next one
+    static final int FAILOVER_ATTEMPTS = 3;
+    private static final int MAX_PROBE_THREADS = 4;
+    // Connect timeout is 3 s, resolving may take a bit on top of it
+    private static final long PROBE_TIMEOUT = 5_000;
+
+    static final class Candidate {
+        final String uri;
+        // Position in list from Dart, breaks ties
+        final int order;
+        IngestStandby.Probe probe;
+        long probedAt;
+
+        Candidate(String uri, int order) {
+            this.uri = uri;
+            this.order = order;
+        }
+
+        boolean isHealthy() {
+            return probe == null || probe.ready;
+        }
+
+        long rtt() {
+            return probe != null && probe.connectMs >= 0 ? probe.connectMs : Long.MAX_VALUE;
+        }
+    }
+
+    // Called on main thread
+    interface Callback {
+        void onRanked(List<Candidate> ranking);
+    }
+
+    private final Handler mHandler;
+    private final List<Candidate> mCandidates = new ArrayList<>();
+    // Candidate in use, index in current ranking
+    private List<Candidate> mRanking = Collections.emptyList();
+    private int mCurrent;
+    // Waiting for probes in progress
+    private final List<Callback> mCallbacks = new ArrayList<>();
+
+    IngestSelector(Handler handler) {
+        mHandler = handler;
+    }
+
+    // Invalid URIs are dropped, list order is the preference when probes can't tell.
+    // Same list again keeps probe results and current candidate.
+    void setUris(List<?> uris) {
+        final List<String> valid = new ArrayList<>();
+        if (uris != null) {
+            for (Object value : uris) {
+                final String uri = value != null ? value.toString() : null;
+                final UriResult parsed = UriResult.parseUri(uri, false);
+                // Stream id and user info are fine in this plugin, they go to ingest as part of URI
+                if (parsed.error != null && parsed.error != UriResult.Error.STREAMID_FOUND
+                        && parsed.error != UriResult.Error.USERINFO_FOUND) {
+                    Log.w(TAG, "Skipping ingest " + UriResult.redact(uri) + ": " + parsed.error);
+                    continue;
+                }
+                valid.add(uri);
+            }
+        }
+        if (valid.equals(uris())) {
+            return;
+        }
+        mCandidates.clear();
+        mRanking = Collections.emptyList();
+        mCurrent = 0;
+        for (String uri : valid) {
+            mCandidates.add(new Candidate(uri, mCandidates.size()));
+        }
+    }
+
+    boolean hasCandidates() {
+        return !mCandidates.isEmpty();
+    }
+
+    List<String> uris() {
+        final List<String> uris = new ArrayList<>();
+        for (Candidate candidate : mCandidates) {
+            uris.add(candidate.uri);
+        }
+        return uris;
+    }
+
+    boolean isStale() {
+        final long now = SystemClock.elapsedRealtime();
+        for (Candidate candidate : mCandidates) {
+            if (candidate.probe == null || now - candidate.probedAt > RANKING_TTL) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Standby probes keep ranking fresh, so startStream doesn't have to wait for probes
+    void onProbe(IngestStandby.Probe probe) {
+        for (Candidate candidate : mCandidates) {
+            if (candidate.uri.equals(probe.uri)) {
+                candidate.probe = probe;
+                candidate.probedAt = SystemClock.elapsedRealtime();
+            }
+        }
+    }
+
+    // Probes every candidate in parallel, then ranks them; callback gets ranking with best first
+    void probe(final Callback callback) {
+        mCallbacks.add(callback);
+        if (mCallbacks.size() > 1) {
+            return;
+        }
+        final List<Candidate> candidates = new ArrayList<>(mCandidates);
+        final Thread thread = new Thread(() -> {
+            final List<IngestStandby.Probe> probes = probeAll(candidates);
+            mHandler.post(() -> {
+                final long now = SystemClock.elapsedRealtime();
+                for (int i = 0; i < candidates.size(); i++) {
+                    candidates.get(i).probe = probes.get(i);
+                    candidates.get(i).probedAt = now;
+                }
+                final List<Candidate> ranking = rank();
+                final List<Callback> callbacks = new ArrayList<>(mCallbacks);
+                mCallbacks.clear();
+                for (Callback waiting : callbacks) {
+                    waiting.onRanked(ranking);
+                }
+            });
+        }, TAG);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static List<IngestStandby.Probe> probeAll(List<Candidate> candidates) {
+        final List<Callable<IngestStandby.Probe>> tasks = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            tasks.add(() -> IngestStandby.probe(candidate.uri));
+        }
+        final List<IngestStandby.Probe> probes = new ArrayList<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_PROBE_THREADS, Math.max(1, tasks.size())));
+        try {
+            final List<Future<IngestStandby.Probe>> futures = executor.invokeAll(tasks, PROBE_TIMEOUT, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < futures.size(); i++) {
+                IngestStandby.Probe probe;
+                try {
+                    probe = futures.get(i).get();
+                } catch (Exception e) {
+                    // Cancelled by timeout
+                    probe = new IngestStandby.Probe(candidates.get(i).uri);
+                    probe.error = "Probe timed out";
+                }
+                probes.add(probe);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            while (probes.size() < candidates.size()) {
+                probes.add(new IngestStandby.Probe(candidates.get(probes.size()).uri));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return probes;
+    }
+
+    // Healthy before unhealthy, then by connect time, then by list order
+    List<Candidate> rank() {
+        final List<Candidate> ranking = new ArrayList<>(mCandidates);
+        Collections.sort(ranking, (a, b) -> {
+            if (a.isHealthy() != b.isHealthy()) {
+                return a.isHealthy() ? -1 : 1;
+            }
+            final int byRtt = Long.compare(a.rtt(), b.rtt());
+            return byRtt != 0 ? byRtt : Integer.compare(a.order, b.order);
+        });
+        mRanking = ranking;
+        mCurrent = 0;
+        return ranking;
+    }
+
+    Candidate current() {
+        if (mRanking.isEmpty()) {
+            rank();
+        }
+        return mRanking.isEmpty() ? null : mRanking.get(mCurrent);
+    }
+
+    // Next candidate in ranking, null once all were tried since last ranking
+    Candidate next() {
+        if (mCurrent + 1 >= mRanking.size()) {
+            return null;
+        }
+        return mRanking.get(++mCurrent);
+    }
+}
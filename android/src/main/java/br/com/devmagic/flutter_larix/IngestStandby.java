@@ -0,0 +1,179 @@
+package br.com.devmagic.flutter_larix;
+
+import android.os.Handler;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import br.com.devmagic.flutter_larix.libcommon.UriResult;
+import io.flutter.Log;
+
+// Reachability and DNS pre-resolve probe of ingest while preview runs and nothing is published yet.
+// Streamer has no handshake-only connection, publishing starts as soon as it connects,
+// so standby only resolves ingest hosts and times a plain TCP connect to RTMP ones, closed right away.
+// Repeated every interval, it keeps host lookups in DNS cache and tells early if ingest is unreachable.
+// No connection is held and no handshake runs ahead: Streamer connects and handshakes on startStream.
+// Probes block, so they run on own thread rather than on the shared scheduler.
+class IngestStandby {
+    private static final String TAG = "IngestStandby";
+
+    static final long DEFAULT_INTERVAL = 20_000;
+    private static final long MIN_INTERVAL = 5_000;
+    private static final int CONNECT_TIMEOUT = 3_000;
+
+    // Called on main thread
+    interface Listener {
+        void onStandby(Probe probe);
+    }
+
+    static final class Probe {
+        final String uri;
+        boolean ready;
+        long resolveMs = -1;
+        // -1 for UDP based protocols which are only resolved
+        long connectMs = -1;
+        String error;
+
+        Probe(String uri) {
+            this.uri = uri;
+        }
+    }
+
+    private final Handler mHandler;
+    private final Listener mListener;
+    private ScheduledExecutorService mExecutor;
+    private ScheduledFuture<?> mTask;
+    private List<String> mUris = Collections.emptyList();
+    private long mInterval = DEFAULT_INTERVAL;
+
+    IngestStandby(Handler handler, Listener listener) {
+        mHandler = handler;
+        mListener = listener;
+    }
+
+    synchronized boolean isRunning() {
+        return mTask != null;
+    }
+
+    // Starts probing or picks up new URIs and interval, first probe runs right away
+    synchronized void start(List<String> uris, long interval) {
+        final List<String> copy = new ArrayList<>(uris);
+        final long period = Math.max(MIN_INTERVAL, interval > 0 ? interval : DEFAULT_INTERVAL);
+        if (mTask != null && copy.equals(mUris) && period == mInterval) {
+            return;
+        }
+        mUris = copy;
+        mInterval = period;
+        if (mExecutor == null) {
+            mExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, TAG);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        schedule();
+    }
+
+    // Probes again now, e.g. on a new default network
+    synchronized void refresh() {
+        if (mTask != null) {
+            schedule();
+        }
+    }
+
+    synchronized void stop() {
+        if (mTask != null) {
+            mTask.cancel(true);
+            mTask = null;
+        }
+    }
+
+    synchronized void release() {
+        stop();
+        if (mExecutor != null) {
+            mExecutor.shutdownNow();
+            mExecutor = null;
+        }
+    }
+
+    private void schedule() {
+        if (mTask != null) {
+            mTask.cancel(false);
+        }
+        final List<String> uris = mUris;
+        mTask = mExecutor.scheduleWithFixedDelay(() -> probeAll(uris), 0, mInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void probeAll(List<String> uris) {
+        for (String uri : uris) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            final Probe probe = probe(uri);
+            mHandler.post(() -> {
+                if (isRunning()) {
+                    mListener.onStandby(probe);
+                }
+            });
+        }
+    }
+
+    static Probe probe(String uri) {
+        final Probe probe = new Probe(uri);
+        try {
+            final URI parsed = new URI(uri);
+            final String scheme = parsed.getScheme() != null ? parsed.getScheme().toLowerCase(Locale.US) : "";
+            final String host = parsed.getHost();
+            if (host == null) {
+                probe.error = "No host";
+                return probe;
+            }
+            long start = System.nanoTime();
+            final InetAddress address = InetAddress.getAllByName(host)[0];
+            probe.resolveMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            final int port = parsed.getPort() > 0 ? parsed.getPort() : defaultTcpPort(scheme);
+            if (port > 0 && isTcp(scheme)) {
+                start = System.nanoTime();
+                try (Socket socket = new Socket()) {
+                    socket.connect(new InetSocketAddress(address, port), CONNECT_TIMEOUT);
+                }
+                probe.connectMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            }
+            probe.ready = true;
+        } catch (Exception e) {
+            // URISyntaxException, UnknownHostException, timeouts and refused connections
+            probe.error = e.getClass().getSimpleName() + (e.getMessage() != null ? ": " + e.getMessage() : "");
+            Log.d(TAG, "Probe of " + UriResult.redact(uri) + " failed: " + probe.error);
+        }
+        return probe;
+    }
+
+    private static boolean isTcp(String scheme) {
+        return scheme.startsWith("rtmp") || scheme.equals("http") || scheme.equals("https");
+    }
+
+    private static int defaultTcpPort(String scheme) {
+        switch (scheme) {
+            case "rtmp":
+                return 1935;
+            case "rtmps":
+            case "https":
+                return 443;
+            case "http":
+                return 80;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.devmagic.flutter_larix;
+
+import android.media.MediaCodec;
+import android.os.Bundle;
+import android.os.SystemClock;
+
+import com.wmspanel.libstream.Streamer;
+
+import io.flutter.Log;
+
+// Asks the running video encoder for an IDR frame, so a connection which just started
+// publishing gets a decodable picture now instead of at the next scheduled keyframe.
+// Streamer doesn't expose its MediaCodec, it is reached through private fields, see LibstreamFields;
+// if these are gone in another libstream build, a warning is logged once and requests do nothing.
+final class KeyFrameRequester {
+    private static final String TAG = "KeyFrameRequester";
+
+    // Encoder is shared by all destinations, connections starting together get one keyframe
+    private static final long MIN_GAP = 500;
+
+    private static LibstreamFields sFields;
+    private static boolean sUnavailable;
+
+    private long mLastRequest;
+
+    // Main thread only
+    boolean request(Streamer streamer) {
+        final long now = SystemClock.elapsedRealtime();
+        if (streamer == null || now - mLastRequest < MIN_GAP) {
+            return false;
+        }
+        final MediaCodec codec = videoCodec(streamer);
+        if (codec == null) {
+            return false;
+        }
+        final Bundle params = new Bundle();
+        params.putInt(MediaCodec.PARAMETER_KEY_REQUEST_SYNC_FRAME, 0);
+        try {
+            codec.setParameters(params);
+        } catch (IllegalStateException e) {
+            // Encoder is being released or reconfigured, next one starts with IDR anyway
+            return false;
+        }
+        mLastRequest = now;
+        return true;
+    }
+
+    private static synchronized MediaCodec videoCodec(Streamer streamer) {
+        if (sUnavailable) {
+            return null;
+        }
+        try {
+            if (sFields == null) {
+                sFields = LibstreamFields.resolve();
+            }
+            return sFields.videoCodec(streamer);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            Log.w(TAG, "Can't reach video encoder, keyframes on connect disabled; fields were verified with libstream AAR sha256 "
+                    + LibstreamFields.VERIFIED_AAR_SHA256 + ": " + e);
+            sUnavailable = true;
+            return null;
+        }
+    }
+}
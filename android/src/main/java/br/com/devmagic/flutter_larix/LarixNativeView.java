@@ -6,14 +6,15 @@ import android.app.Application;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.content.res.Configuration;
+import android.media.MediaFormat;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Environment;
 import android.os.Handler;
 import android.os.Looper;
 import android.provider.Settings;
 import android.view.LayoutInflater;
+import android.view.Surface;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 import android.view.View;
@@ -37,21 +38,30 @@ import com.wmspanel.libstream.FocusMode;
 
 import org.json.JSONObject;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import br.com.devmagic.flutter_larix.camera.CameraInfo;
 import br.com.devmagic.flutter_larix.camera.CameraPermissions;
 import br.com.devmagic.flutter_larix.camera.CameraPermissions.PermissionsRegistry;
-import br.com.devmagic.flutter_larix.camera.CameraRegistry;
+import br.com.devmagic.flutter_larix.camera.CameraCache;
 import br.com.devmagic.flutter_larix.camera.CameraSettings;
+import br.com.devmagic.flutter_larix.conditioner.QualityLadder;
 import br.com.devmagic.flutter_larix.conditioner.StreamConditionerBase;
+import br.com.devmagic.flutter_larix.conditioner.StreamConditionerRegistry;
 import br.com.devmagic.flutter_larix.libcommon.ConnectionStatistics;
+import br.com.devmagic.flutter_larix.libcommon.MediaCodecUtils;
+import br.com.devmagic.flutter_larix.libcommon.UriResult;
 import io.flutter.Log;
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.MethodCall;
@@ -62,22 +72,43 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
     @NonNull private final LinearLayout container;
 
     private static final String TAG = "StreamerFragment";
+    // Upper bound for "AUTO" resolution, some encoders fail with 4K
+    private static final Streamer.Size AUTO_MAX_SIZE = new Streamer.Size(1920, 1080);
+    private static final long DEFAULT_START_TIMEOUT = 10_000;
 
-    private StreamerGL mStreamerGL;
-    private StreamConditionerBase mConditioner;
+    private volatile StreamerGL mStreamerGL;
+    private volatile StreamConditionerBase mConditioner;
     private final PermissionsRegistry permissionsRegistry;
     private final CameraPermissions cameraPermissions;
     private List<CameraInfo> cameraList;
     private CameraInfo activeCameraInfo;
     private String mCameraId;
     private Streamer.Size mSize;
+    // "AUTO" resolution, mSize is picked from top of mQualityLadder
+    private boolean mAutoResolution;
+    private QualityLadder mQualityLadder;
+    // Encoder settings from createStreamer, conditioner derives rung configs from it
+    private VideoConfig mVideoConfig;
+    // Codec names from Dart, most preferred first; codecs which failed on this view are skipped
+    private List<?> mCodecPreferences;
+    private final Set<String> mFailedCodecs = new HashSet<>();
+    // Streaming has to be restarted once streamer rebuilt after encoder failure captures again
+    private boolean mRestartStreamPending;
+    // Capture was restarted for a new ladder rung, running conditioner goes on from where it was
+    private boolean mResumeConditioner;
+    // startStream calls waiting for camera and mic, completed from capture callbacks or by timeout
+    private final List<MethodChannel.Result> mPendingStarts = new ArrayList<>();
+    private final Runnable mStartTimeout = () -> failPendingStarts("START_TIMEOUT", "Capture didn't start in time");
+    private boolean mAdaptResolution;
     private String mUri;
     protected boolean mIsMuted;
     private Handler mHandler;
-    private final Map<Integer, ConnectionStatistics> mConnectionStatistics = new HashMap();
-    private final Map<Integer, Streamer.ConnectionState> mConnectionState = new HashMap<>();
+    private final Map<Integer, ConnectionStatistics> mConnectionStatistics = new ConcurrentHashMap<>();
+    private final Map<Integer, Streamer.ConnectionState> mConnectionState = new ConcurrentHashMap<>();
     protected int mCurrentBitrate;
-    private boolean recording = false;
+    private int mVideoBitrate;
+    private float mVideoFps;
+    private SegmentedRecorder mRecorder;
 
     protected float mScaleFactor;
 
@@ -88,7 +119,10 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
 
     private SurfaceView mSurfaceView;
     private SurfaceHolder mHolder;
-    private Timer mUpdateStatisticsTimer;
+    // Shared with other views and conditioners, owned by FlutterLarixPlugin
+    private final ScheduledExecutorService mScheduler;
+    private ScheduledFuture<?> mUpdateStatisticsTask;
+    private long mStatisticsInterval = 2000;
 
     private final FocusMode mFocusMode = new FocusMode();
 
@@ -96,19 +130,43 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
 
     @NonNull
     StreamerGLBuilder builder;
-    int connectionId = 0;
+    // Primary ingest first, then backups; all share one encoder
+    private final List<StreamDestination> mDestinations = new CopyOnWriteArrayList<>();
 
     private @NonNull Context mContext;
     private @NonNull Activity activity;
 
     private MethodChannel methodChannel;
-
-    private Timer reconnectTimer;
-    private TimerTask reconnectTimerTask = null;
-
-
-    LarixNativeView(BinaryMessenger messenger, PermissionsRegistry permissionsAdder, CameraPermissions cameraPermissions ,Activity activity, @NonNull Context context, int id, @Nullable Map<String, Object> creationParams) {
+    // Shared by all views, see StatsTelemetry
+    private final StatsTelemetry mTelemetry;
+    private final StatsTelemetry.Sampler mTelemetrySampler = this::sampleTelemetry;
+    private final EncodingGovernor mGovernor;
+    private final NetworkMonitor mNetworkMonitor;
+    private final IngestStandby mStandby;
+    private final KeyFrameRequester mKeyFrameRequester = new KeyFrameRequester();
+    // Candidates for primary destination, empty when Dart gave a single url
+    private final IngestSelector mIngestSelector;
+    // Set from Dart, standby runs only while preview captures and nothing is published
+    private boolean mStandbyEnabled;
+    private long mStandbyInterval = IngestStandby.DEFAULT_INTERVAL;
+    // Fixed encoder settings were lowered by governor
+    private boolean mGovernorCapped;
+    // Telemetry sampler scratch list, scheduler thread only
+    private final List<StreamDestination> mTelemetryDestinations = new ArrayList<>();
+    // Bps comes from delta since previous update, so telemetry has statistics of its own,
+    // sampling at its rate doesn't shorten the window of mConnectionStatistics
+    private final Map<Integer, ConnectionStatistics> mTelemetryStatistics = new ConcurrentHashMap<>();
+
+    private final ReconnectPolicy mReconnectPolicy = new ReconnectPolicy();
+    // Conditioner bitrate when some destination was last seen sending data
+    private int mLastGoodBitrate;
+    private long mLastGoodTs;
+
+
+    LarixNativeView(BinaryMessenger messenger, PermissionsRegistry permissionsAdder, CameraPermissions cameraPermissions ,Activity activity, @NonNull Context context, int id, @Nullable Map<String, Object> creationParams,
+                    ScheduledExecutorService scheduler, StatsTelemetry telemetry) {
         mContext = context;
+        mScheduler = scheduler;
         this.activity = activity;
         this.cameraPermissions = cameraPermissions;
         this.permissionsRegistry = permissionsAdder;
@@ -128,7 +186,15 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
         }
 
         mSize = getResolution(creationParams);
+        if (creationParams.get("codecs") instanceof List) {
+            mCodecPreferences = (List<?>) creationParams.get("codecs");
+        }
         mUri = creationParams.get("url").toString();
+        mDestinations.addAll(StreamDestination.fromUris(null, mUri));
+        mIngestSelector = new IngestSelector(mHandler);
+        if (creationParams.get("ingestUrls") instanceof List) {
+            mIngestSelector.setUris((List<?>) creationParams.get("ingestUrls"));
+        }
         FrameLayout.LayoutParams layoutParams = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
                 ViewGroup.LayoutParams.MATCH_PARENT);
         container = new LinearLayout(context);
@@ -137,6 +203,14 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
 
         methodChannel = new MethodChannel(messenger, "br.com.devmagic.flutter_larix/nativeview_controller");
         methodChannel.setMethodCallHandler(this);
+        mTelemetry = telemetry;
+        mTelemetry.setSampler(mTelemetrySampler);
+        mGovernor = new EncodingGovernor(context, mScheduler, this::onGovernorChanged);
+        mGovernor.start();
+        mNetworkMonitor = new NetworkMonitor(context, mHandler, this::onNetworkChanged);
+        mNetworkMonitor.start();
+        mStandby = new IngestStandby(mHandler, this::onStandby);
+        mRecorder = new SegmentedRecorder(context, mHandler, this::recordBitrate, this::onRecordSegment);
 
         ViewGroup root = (ViewGroup) LayoutInflater.from(activity).inflate(R.layout.afl_surface, container, true);
 
@@ -153,11 +227,30 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
                 return new Streamer.Size(720, 480);
             case "FULLHD":
                 return new Streamer.Size(1920, 1080);
+            case "AUTO":
+                mAutoResolution = true;
+                return AUTO_MAX_SIZE;
             default:
                 return new Streamer.Size(1280, 720);
         }
     }
 
+    // Rungs up to requested size, with bitrate given to initCamera or recommended for top size
+    private QualityLadder buildQualityLadder(String type, int bitRate) {
+        final Streamer.Size maxSize = mAutoResolution ? AUTO_MAX_SIZE : mSize;
+        final int maxFps = 30;
+        final QualityLadder.Limits limits = MediaCodecUtils.ladderLimits(type);
+        QualityLadder ladder = QualityLadder.build(activeCameraInfo, maxSize, maxFps,
+                bitRate != 0 ? bitRate : MediaCodecUtils.recommendedBitrateKbps(type, maxSize.height, maxFps) * 1000, limits);
+        if (bitRate == 0 && !ladder.top().size.equals(maxSize)) {
+            final QualityLadder.Rung top = ladder.top();
+            ladder = QualityLadder.build(activeCameraInfo, top.size, top.fps,
+                    MediaCodecUtils.recommendedBitrateKbps(type, top.size.height, top.fps) * 1000, limits);
+        }
+        Log.d(TAG, "Quality ladder " + ladder);
+        return ladder;
+    }
+
     private final SurfaceHolder.Callback mPreviewHolderCallback = new SurfaceHolder.Callback() {
         @Override
         public void surfaceCreated(SurfaceHolder holder) {
@@ -201,13 +294,6 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
             mHolder = null;
             releaseStreamer();
         }
-
-        private void releaseStreamer() {
-            if (mStreamerGL != null) {
-                mStreamerGL.release();
-                mStreamerGL = null;
-            }
-        }
     };
 
     private HashMap<String, Boolean> checkPermissions() {
@@ -228,11 +314,16 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
         if (mStreamerGL != null) {
             return;
         }
+        final Surface surface = mHolder != null ? mHolder.getSurface() : null;
+        if (surface == null || !surface.isValid()) {
+            Log.w(TAG, "No preview surface, streamer not created");
+            return;
+        }
         mCurrentBitrate = bitRate;
 
         builder = new StreamerGLBuilder();
-        boolean camera2 = CameraRegistry.allowCamera2Support(mContext);
-        cameraList = CameraRegistry.getCameraList(mContext, camera2);
+        boolean camera2 = CameraCache.allowCamera2Support(mContext);
+        cameraList = CameraCache.getCameraList(mContext, camera2);
         activeCameraInfo = CameraSettings.getActiveCameraInfo(mContext, mCameraId, cameraList);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
             builder.setContext(mContext);
@@ -245,48 +336,32 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
         // default config: h264, 2 mbps, 2 sec. keyframe interval
 
         final VideoConfig videoConfig = new VideoConfig();
-       videoConfig.videoSize = mSize;
+       videoConfig.type = VideoEncoderSettings.selectMimeType(mCodecPreferences, mFailedCodecs);
+       // Encoder capabilities come from EncoderDatabase, usually already built by LarixPrewarm
+       mQualityLadder = buildQualityLadder(videoConfig.type, bitRate);
+       if (mAutoResolution) {
+           final QualityLadder.Rung top = mQualityLadder.top();
+           mSize = top.size;
+           videoConfig.fps = top.fps;
+           videoConfig.bitRate = top.bitrate;
+       }
+       videoConfig.videoSize = MediaCodecUtils.verifyResolution(videoConfig.type, mSize);
 
        if(bitRate != 0){
         videoConfig.bitRate = bitRate;
+       } else if (!mAutoResolution && !MediaFormat.MIMETYPE_VIDEO_AVC.equals(videoConfig.type)) {
+        // Default bitrate is meant for h264
+        videoConfig.bitRate = MediaCodecUtils.recommendedBitrateKbps(videoConfig.type,
+                videoConfig.videoSize.height, videoConfig.fps) * 1000;
        }
+       Log.d(TAG, "Video codec " + VideoEncoderSettings.codecDisplayName(videoConfig.type));
 
-//        MediaCodecInfo currentCodec = null;
-//        MediaCodecInfo.CodecProfileLevel codecProfileLevel = null;
-//
-//        final MediaCodecList mediaCodecList = new MediaCodecList(MediaCodecList.REGULAR_CODECS);
-//        for (MediaCodecInfo codecInfo : mediaCodecList.getCodecInfos()) {
-//            System.out.println("mano só os tipos "+ codecInfo.getSupportedTypes());
-//            System.out.println("mano qual o nome "+ codecInfo.getName());
-//            System.out.println("mano is encoder is here : "+ codecInfo.isEncoder());
-//            if (!codecInfo.isEncoder()) {
-//                continue;
-//            }
-//            for (String type : codecInfo.getSupportedTypes()) {
-//                System.out.println("tipos de decodec "+ type);
-//                if (type.equalsIgnoreCase("video/avc")) {
-//                    currentCodec = codecInfo;
-//                }
-//            }
-//        }
-//
-//        if(currentCodec != null) {
-//            final MediaCodecInfo.CodecCapabilities capabilities = currentCodec.getCapabilitiesForType("video/avc");
-//
-//            for (MediaCodecInfo.CodecProfileLevel profileLevel : capabilities.profileLevels) {
-//                if (profileLevel.profile == 65536) {
-//
-//                    codecProfileLevel =  profileLevel;
-//                }
-//            }
-//        }
-//        videoConfig.profileLevel = codecProfileLevel;
 
         builder.setVideoConfig(videoConfig);
         builder.setCamera2(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP);
 
         // preview surface
-        builder.setSurface(mHolder.getSurface());
+        builder.setSurface(surface);
         builder.setSurfaceSize(new Streamer.Size(mSurfaceView.getWidth(), mSurfaceView.getHeight()));
 
 
@@ -311,8 +386,132 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
 
         updatePreviewRatio(mPreviewFrame, mSize);
 
+        mVideoBitrate = videoConfig.bitRate;
+        mVideoFps = videoConfig.fps;
+        mVideoConfig = videoConfig;
         mConditioner = StreamConditionerBase.newInstance(mContext,
-                videoConfig.bitRate, activeCameraInfo);
+                videoConfig.bitRate, activeCameraInfo, mScheduler);
+        mAdaptResolution = mAutoResolution;
+        setResolutionSwitching(mConditioner, mAdaptResolution);
+        setGovernorLimits(mConditioner);
+    }
+
+    // HEVC/AV1 didn't work out, either encoder failed or ingest refused the codec.
+    // Streamer is rebuilt for h264, it takes no new codec while capturing; streaming resumes once capture starts.
+    // Called from streamer callbacks, so rebuild is posted. Returns false when already on h264.
+    private boolean fallbackToAvc(String reason) {
+        if (mVideoConfig == null || MediaFormat.MIMETYPE_VIDEO_AVC.equals(mVideoConfig.type)) {
+            return false;
+        }
+        if (mFailedCodecs.contains(mVideoConfig.type)) {
+            // Rebuild is already posted
+            return true;
+        }
+        Log.w(TAG, VideoEncoderSettings.codecDisplayName(mVideoConfig.type) + " failed (" + reason + "), falling back to H.264");
+        mFailedCodecs.add(mVideoConfig.type);
+
+        final Map<String, Object> data = new HashMap<>();
+        data.put("codec", "avc");
+        data.put("failedCodec", mVideoConfig.type);
+        data.put("reason", reason);
+        methodChannel.invokeMethod("codecChanged", data);
+
+        final boolean streaming = isStreaming();
+        final StreamerGL failed = mStreamerGL;
+        mHandler.post(() -> {
+            // View was disposed or streamer released meanwhile, next one is created for h264 anyway
+            if (mStreamerGL != failed) {
+                return;
+            }
+            releaseConnections();
+            releaseStreamer();
+            mVideoCaptureState = Streamer.CaptureState.FAILED;
+            mAudioCaptureState = Streamer.CaptureState.FAILED;
+            mRestartStreamPending = streaming;
+            mResumeConditioner = false;
+            createStreamer(mCurrentBitrate);
+        });
+        return true;
+    }
+
+    // Lets conditioner drop to lower ladder rungs under sustained congestion
+    private void setResolutionSwitching(StreamConditionerBase conditioner, boolean enabled) {
+        if (conditioner == null) {
+            return;
+        }
+        conditioner.setQualityLadder(enabled ? mQualityLadder : null, mVideoConfig, (rung, config, bitrate) -> {
+            if (!restartEncoder(config)) {
+                return;
+            }
+            Log.d(TAG, "Resolution -> " + rung + ", " + bitrate + " bps");
+            final Map<String, Object> data = new HashMap<>();
+            data.put("width", rung.size.width);
+            data.put("height", rung.size.height);
+            data.put("fps", rung.fps);
+            data.put("bitrate", bitrate);
+            methodChannel.invokeMethod("resolutionChanged", data);
+        });
+    }
+
+    // Encoder takes new size only with video capture stopped. Connections are released for the restart
+    // and reopened by maybeRestartStream() once capture is back, conditioner keeps its rung and bitrate.
+    private boolean restartEncoder(VideoConfig config) {
+        if (mStreamerGL == null) {
+            return false;
+        }
+        final boolean streaming = isStreaming();
+        releaseConnections();
+        // Recorded file can't change resolution midway
+        mRecorder.stop();
+        mVideoCaptureState = Streamer.CaptureState.STOPPED;
+        mRestartStreamPending = streaming;
+        mResumeConditioner = streaming;
+        StreamConditionerBase.applyVideoConfig(mStreamerGL, config);
+        return true;
+    }
+
+    private boolean isStreaming() {
+        for (StreamDestination destination : mDestinations) {
+            if (destination.isActive() || destination.reconnectTask != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Scheduler thread, device got hotter or cooler
+    private void onGovernorChanged(EncodingGovernor governor) {
+        final Map<String, Object> data = governor.toMap();
+        mHandler.post(() -> {
+            setGovernorLimits(mConditioner);
+            methodChannel.invokeMethod("governorChanged", data);
+        });
+    }
+
+    // Running conditioner applies limits itself, otherwise encoder runs with fixed settings which are capped here
+    private void setGovernorLimits(StreamConditionerBase conditioner) {
+        final int maxFps = mGovernor.maxFps();
+        final double bitrateFrac = mGovernor.bitrateFrac();
+        if (conditioner != null) {
+            conditioner.setGovernorLimits(maxFps, bitrateFrac, mGovernor.rungDrop());
+            if (conditioner.isRunning()) {
+                return;
+            }
+        }
+        // Nothing to restore when encoder was never capped
+        final boolean capped = maxFps > 0 || bitrateFrac < 1.0;
+        if (mStreamerGL == null || activeCameraInfo == null || !(capped || mGovernorCapped)) {
+            return;
+        }
+        mGovernorCapped = capped;
+        final float fps = maxFps > 0 ? Math.min(mVideoFps, maxFps) : mVideoFps;
+        final Streamer.FpsRange range = activeCameraInfo.findNearestFpsRange(fps, false);
+        if (range != null) {
+            mStreamerGL.changeFpsRange(range);
+        }
+        if (mVideoBitrate > 0) {
+            mStreamerGL.changeBitRate((int) Math.round(mVideoBitrate * bitrateFrac));
+        }
     }
 
     @NonNull
@@ -323,19 +522,45 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
 
     @Override
     public void dispose() {
-        if (mUpdateStatisticsTimer != null) {
-            mUpdateStatisticsTimer.cancel();
-            mUpdateStatisticsTimer = null;
-        }
-        if (mStreamerGL != null) {
-            mStreamerGL.release();
-            mStreamerGL = null;
-        }
+        cancelStatisticsTask();
+        mTelemetry.clearSampler(mTelemetrySampler);
+        mGovernor.stop();
+        mNetworkMonitor.stop();
+        mStandby.release();
+        mRecorder.stop();
+        LarixUploads.setHold(this, false);
+        failPendingStarts("DISPOSED", "View disposed");
+        releaseStreamer();
         if (mHandler != null) {
             mHandler.removeCallbacks(mUpdateStatistics);
         }
     }
 
+    // Conditioner and statistics tasks call streamer on scheduler thread, which throws once it is released.
+    // Capture stops right away, preview surface may be going and a new streamer needs camera and mic.
+    // Release is posted back to main thread once scheduler is past a task still holding the streamer,
+    // main thread doesn't wait for it.
+    private void releaseStreamer() {
+        final StreamerGL streamer = mStreamerGL;
+        if (streamer == null) {
+            return;
+        }
+        if (mConditioner != null) {
+            mConditioner.release();
+        }
+        cancelStatisticsTask();
+        mRecorder.stop();
+        mStreamerGL = null;
+        streamer.stopVideoCapture();
+        streamer.stopAudioCapture();
+        try {
+            mScheduler.execute(() -> mHandler.post(streamer::release));
+        } catch (RejectedExecutionException e) {
+            // Scheduler is shut down, nothing holds the streamer
+            streamer.release();
+        }
+    }
+
     private boolean isPortrait() {
         return mContext.getResources().getConfiguration().orientation == Configuration.ORIENTATION_PORTRAIT;
     }
@@ -357,10 +582,72 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
     @Override
     public void onAudioCaptureStateChanged(Streamer.CaptureState state) {
         mAudioCaptureState = state;
+        if (state == Streamer.CaptureState.FAILED || state == Streamer.CaptureState.ENCODER_FAIL) {
+            failPendingStarts("CAPTURE_FAILED", "Audio capture " + state.name());
+        } else {
+            maybeRestartStream();
+            maybeCompleteStarts();
+        }
+        updateStandby();
+    }
+
+    private boolean isCaptureStarted() {
+        return mStreamerGL != null
+                && mVideoCaptureState == Streamer.CaptureState.STARTED
+                && mAudioCaptureState == Streamer.CaptureState.STARTED;
+    }
+
+    // Answers right away when capture runs, otherwise once it starts
+    private void startStream(MethodChannel.Result result, long timeout) {
+        if (isCaptureStarted()) {
+            maybeCreateStream();
+            result.success(primaryConnectionId());
+            return;
+        }
+        mPendingStarts.add(result);
+        mHandler.removeCallbacks(mStartTimeout);
+        mHandler.postDelayed(mStartTimeout, timeout > 0 ? timeout : DEFAULT_START_TIMEOUT);
+    }
+
+    private void maybeCompleteStarts() {
+        if (mPendingStarts.isEmpty() || !isCaptureStarted()) {
+            return;
+        }
+        mHandler.removeCallbacks(mStartTimeout);
+        maybeCreateStream();
+        final int id = primaryConnectionId();
+        final List<MethodChannel.Result> results = new ArrayList<>(mPendingStarts);
+        mPendingStarts.clear();
+        for (MethodChannel.Result result : results) {
+            result.success(id);
+        }
+    }
+
+    private void failPendingStarts(String code, String message) {
+        mHandler.removeCallbacks(mStartTimeout);
+        if (mPendingStarts.isEmpty()) {
+            return;
+        }
+        final List<MethodChannel.Result> results = new ArrayList<>(mPendingStarts);
+        mPendingStarts.clear();
+        for (MethodChannel.Result result : results) {
+            result.error(code, message, null);
+        }
+    }
+
+    private void maybeRestartStream() {
+        if (mRestartStreamPending
+                && mVideoCaptureState == Streamer.CaptureState.STARTED
+                && mAudioCaptureState == Streamer.CaptureState.STARTED) {
+            mRestartStreamPending = false;
+            maybeCreateStream();
+            mResumeConditioner = false;
+        }
     }
 
     @Override
     public void onRecordStateChanged(Streamer.RecordState recordState, Uri uri, Streamer.SaveMethod saveMethod) {
+        mRecorder.onRecordStateChanged(recordState, uri, saveMethod);
     }
 
     @Override
@@ -375,91 +662,421 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
 
     @Override
     public void onConnectionStateChanged(int i, Streamer.ConnectionState connectionState, Streamer.Status status, JSONObject jsonObject) {
+        final StreamDestination destination = findDestination(i);
+        ConnectionFailure failure = null;
+        if (connectionState == Streamer.ConnectionState.DISCONNECTED) {
+            failure = ConnectionFailure.classify(status, jsonObject,
+                    destination != null && destination.reachedServer, destination != null && destination.publishing);
+            Log.w(TAG, "Connection " + i + " closed: " + failure + ", " + status + " " + jsonObject);
+        }
         Map<String, Object> data = new HashMap<>();
+        data.put("connectionId", i);
+        data.put("uri", destination != null ? destination.uri : null);
         data.put("connectionState", connectionState.name());
-        mConnectionState.put(connectionId, connectionState);
+        data.put("failure", failure != null ? failure.name() : null);
+        mConnectionState.put(i, connectionState);
         methodChannel.invokeMethod("streamChanged", data);
+        // Live stream has the uplink while any destination is publishing
+        LarixUploads.setHold(this, isAnyRecording());
+
+        if (destination != null) {
+            if (connectionState == Streamer.ConnectionState.CONNECTED || connectionState == Streamer.ConnectionState.SETUP) {
+                destination.reachedServer = true;
+            } else if (connectionState == Streamer.ConnectionState.RECORD) {
+                destination.publishing = true;
+                destination.failure = null;
+                // Viewers of new connection shouldn't wait for next scheduled keyframe
+                mKeyFrameRequester.request(mStreamerGL);
+            }
+        }
+        if (destination != null && connectionState == Streamer.ConnectionState.DISCONNECTED) {
+            destination.failure = failure;
+            destination.reachedServer = false;
+            destination.publishing = false;
+            // Rebuilt streamer reopens all connections once it captures
+            if (failure == ConnectionFailure.CODEC_REJECTED && fallbackToAvc("ingest")) {
+                return;
+            }
+            scheduleReconnect(destination);
+        }
 
     }
 
-    private void maybeCreateStream() {
-        if (mStreamerGL != null
-                && mVideoCaptureState == Streamer.CaptureState.STARTED
-                && mAudioCaptureState == Streamer.CaptureState.STARTED) {
-            ConnectionConfig conn = new ConnectionConfig();
-            conn.uri = mUri;
+    private StreamDestination findDestination(int connectionId) {
+        for (StreamDestination destination : mDestinations) {
+            if (destination.connectionId == connectionId) {
+                return destination;
+            }
+        }
+        return null;
+    }
 
-            connectionId = mStreamerGL.createConnection(conn);
-            if (connectionId != -1) {
-                if (mConditioner != null) {
-                    mConditioner.addConnection(connectionId);
+    private int primaryConnectionId() {
+        return mDestinations.isEmpty() ? 0 : mDestinations.get(0).connectionId;
+    }
+
+    private String primaryUri() {
+        return mDestinations.isEmpty() ? mUri : mDestinations.get(0).uri;
+    }
+
+    // Opens connection for every destination which doesn't have one yet
+    private void maybeCreateStream() {
+        if (isCaptureStarted()) {
+            boolean created = false;
+            for (StreamDestination destination : mDestinations) {
+                if (!destination.isActive()) {
+                    created |= createConnection(destination);
+                }
+            }
+            if (created && mConditioner != null) {
+                if (!mResumeConditioner) {
                     mConditioner.start(mStreamerGL);
+                } else if (mConditioner.isRunning()) {
+                    // Back from encoder restart, starting over would reset ladder rung
+                    mConditioner.resumeAt(mStreamerGL, mConditioner.getBitrate());
                 }
             }
+            runStatisticsTask();
+        }
+    }
 
-            mConnectionStatistics.put(connectionId, new ConnectionStatistics());
-            if (mUpdateStatisticsTimer != null) {
-                mUpdateStatisticsTimer.cancel();
-                mUpdateStatisticsTimer = null;
-            }
-            mUpdateStatisticsTimer = new Timer();
-            mUpdateStatisticsTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    mHandler.post(mUpdateStatistics);
-                }
-            }, 2000, 2000);
+    private boolean createConnection(StreamDestination destination) {
+        ConnectionConfig conn = new ConnectionConfig();
+        conn.uri = destination.uri;
+
+        final int id = mStreamerGL.createConnection(conn);
+        if (id == -1) {
+            Log.e(TAG, "Failed to create connection to " + UriResult.redact(destination.uri));
+            destination.connectionId = 0;
+            return false;
+        }
+        destination.connectionId = id;
+        mConnectionStatistics.put(id, new ConnectionStatistics());
+        mTelemetryStatistics.put(id, new ConnectionStatistics());
+        if (mConditioner != null) {
+            mConditioner.addConnection(id);
         }
+        return true;
+    }
 
-            Streamer.ConnectionState state = mConnectionState.get(connectionId);
-            if (state == Streamer.ConnectionState.RECORD) {
-                ConnectionStatistics statistics = mConnectionStatistics.get(connectionId);
-                if (statistics != null) {
-                    statistics.update(mStreamerGL, connectionId);
-                    Map<String, Object> data = new HashMap<>();
-                    data.put("bandwidth", statistics.getBandwidth());
-                    data.put("traffic", statistics.getTraffic());
+    private void releaseConnection(StreamDestination destination) {
+        final int id = destination.connectionId;
+        if (id <= 0) {
+            return;
+        }
+        destination.connectionId = 0;
+        if (mConditioner != null) {
+            mConditioner.removeConnection(id);
+        }
+        if (mStreamerGL != null) {
+            mStreamerGL.releaseConnection(id);
+        }
+        mConnectionState.remove(id);
+        mConnectionStatistics.remove(id);
+        mTelemetryStatistics.remove(id);
+        LarixUploads.setHold(this, isAnyRecording());
+    }
 
-                    methodChannel.invokeMethod("connectionStatistics", data);
+    private void releaseConnections() {
+        for (StreamDestination destination : mDestinations) {
+            cancelReconnect(destination);
+            releaseConnection(destination);
+        }
+    }
+
+    // Replaces destination list, keeps connections whose URI is still requested
+    private void setDestinations(List<?> uris) {
+        final List<StreamDestination> requested = StreamDestination.fromUris(uris, mUri);
+        for (StreamDestination destination : mDestinations) {
+            boolean keep = false;
+            for (StreamDestination other : requested) {
+                if (other.uri.equals(destination.uri) && !other.isActive()) {
+                    other.connectionId = destination.connectionId;
+                    keep = true;
+                    break;
                 }
             }
+            cancelReconnect(destination);
+            if (!keep) {
+                releaseConnection(destination);
+            }
+        }
+        mDestinations.clear();
+        mDestinations.addAll(requested);
+    }
 
+    // Each failure schedules next attempt with growing delay until policy gives up
+    private void scheduleReconnect(final StreamDestination destination) {
+        if (destination.reconnectTask != null) {
+            return;
+        }
+        final int attempt = ++destination.reconnectAttempt;
+        final int id = destination.connectionId;
+        final ConnectionFailure.Retry retry = destination.failure != null
+                ? destination.failure.retry : ConnectionFailure.Retry.NORMAL;
+        // Moving to next candidate beats retrying one which keeps failing
+        if (!mDestinations.isEmpty() && mDestinations.get(0) == destination && mIngestSelector.hasCandidates()
+                && (retry == ConnectionFailure.Retry.NEVER || attempt > IngestSelector.FAILOVER_ATTEMPTS)) {
+            final IngestSelector.Candidate next = mIngestSelector.next();
+            if (next != null) {
+                Log.w(TAG, "Failing over from " + UriResult.redact(destination.uri) + " to " + UriResult.redact(next.uri)
+                        + ", " + destination.failure);
+                useIngest(next, "failover");
+                reconnect(mDestinations.get(0));
+                return;
+            }
+        }
+        if (!mReconnectPolicy.canRetry(attempt, retry)) {
+            Log.e(TAG, "Giving up reconnect to " + UriResult.redact(destination.uri) + " after " + (attempt - 1) + " attempts, " + destination.failure);
+            releaseConnection(destination);
+            reconnectAttempt(destination, id, attempt - 1, 0, true);
+            updateStandby();
+            return;
+        }
+        final long delay = mReconnectPolicy.delayFor(attempt, retry);
+        destination.reconnectTask = new Runnable() {
+            @Override
+            public void run() {
+                destination.reconnectTask = null;
+                reconnect(destination);
+            }
+        };
+        mHandler.postDelayed(destination.reconnectTask, delay);
+        reconnectAttempt(destination, id, attempt, delay, false);
     }
 
+    // Puts candidate in place of primary destination, backups are left as they are
+    private void useIngest(IngestSelector.Candidate candidate, String reason) {
+        if (candidate == null) {
+            return;
+        }
+        if (!mDestinations.isEmpty()) {
+            final StreamDestination primary = mDestinations.get(0);
+            if (primary.uri.equals(candidate.uri)) {
+                return;
+            }
+            cancelReconnect(primary);
+            releaseConnection(primary);
+            mDestinations.set(0, new StreamDestination(candidate.uri));
+        } else {
+            mDestinations.add(new StreamDestination(candidate.uri));
+        }
+        final Map<String, Object> data = new HashMap<>();
+        data.put("uri", candidate.uri);
+        data.put("reason", reason);
+        data.put("connectMs", candidate.probe != null ? candidate.probe.connectMs : -1);
+        data.put("resolveMs", candidate.probe != null ? candidate.probe.resolveMs : -1);
+        methodChannel.invokeMethod("ingestSelected", data);
+    }
 
-    String startRecord(String fileName){
-        if (recording) {
-            return "";
+    private void reconnect(StreamDestination destination) {
+        Log.d(TAG, "Reconnect to " + UriResult.redact(destination.uri) + ", attempt " + destination.reconnectAttempt);
+        releaseConnection(destination);
+        if (mStreamerGL == null
+                || mVideoCaptureState != Streamer.CaptureState.STARTED
+                || mAudioCaptureState != Streamer.CaptureState.STARTED
+                || !createConnection(destination)) {
+            scheduleReconnect(destination);
+            return;
         }
-        recording = true;
-        File recordFile = createVideoPath(mContext, fileName);
-        if (recordFile != null && mStreamerGL != null) {
-            mStreamerGL.startRecord(recordFile);
+        if (mConditioner == null || isAnyRecording()) {
+            // Other destinations keep conditioner busy, new connection just joins it
+            return;
+        }
+        // Don't restart from ladder's first step after a short blip
+        final boolean shortOutage = mLastGoodBitrate > 0
+                && System.currentTimeMillis() - mLastGoodTs <= mReconnectPolicy.resumeWindow;
+        if (shortOutage) {
+            mConditioner.resumeAt(mStreamerGL, mLastGoodBitrate);
+        } else {
+            mConditioner.start(mStreamerGL);
         }
-        return recordFile.getPath();
     }
 
-    void stopRecord() {
-        if (!recording) {
+    // Sockets of open connections stay on the old network until they time out,
+    // so connections are reopened right away and pending reconnects don't wait for their backoff
+    private void onNetworkChanged(String transport, int upstreamKbps) {
+        mStandby.refresh();
+        if (mStreamerGL == null
+                || mVideoCaptureState != Streamer.CaptureState.STARTED
+                || mAudioCaptureState != Streamer.CaptureState.STARTED) {
+            return;
+        }
+        boolean rebound = false;
+        for (StreamDestination destination : mDestinations) {
+            if (!destination.isActive() && destination.reconnectTask == null) {
+                // Never started or reconnect gave up
+                continue;
+            }
+            cancelReconnect(destination);
+            releaseConnection(destination);
+            destination.reachedServer = false;
+            if (createConnection(destination)) {
+                rebound = true;
+            } else {
+                scheduleReconnect(destination);
+            }
+        }
+        if (!rebound) {
             return;
         }
-        recording = false;
-        mStreamerGL.stopRecord();
+        int bitrate = mVideoBitrate;
+        if (mConditioner != null && mConditioner.isRunning()) {
+            bitrate = NetworkMonitor.estimateBitrate(transport, upstreamKbps, mVideoBitrate);
+            mConditioner.restartAt(mStreamerGL, bitrate);
+        }
+        // Old link's known-good bitrate must not be resumed at on the new one
+        mLastGoodBitrate = 0;
+
+        final Map<String, Object> data = new HashMap<>();
+        data.put("transport", transport);
+        data.put("upstreamKbps", upstreamKbps);
+        data.put("bitrate", bitrate);
+        methodChannel.invokeMethod("networkChanged", data);
+    }
+
+    private boolean isAnyRecording() {
+        for (StreamDestination destination : mDestinations) {
+            if (destination.isActive()
+                    && mConnectionState.get(destination.connectionId) == Streamer.ConnectionState.RECORD) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void reconnectAttempt(StreamDestination destination, int connectionId, int attempt, long delay, boolean gaveUp) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("connectionId", connectionId);
+        data.put("uri", destination.uri);
+        data.put("attempt", attempt);
+        data.put("maxAttempts", mReconnectPolicy.maxAttempts);
+        data.put("delay", delay);
+        data.put("gaveUp", gaveUp);
+        data.put("failure", destination.failure != null ? destination.failure.name() : null);
+        methodChannel.invokeMethod("reconnectAttempt", data);
+    }
+
+    private void cancelReconnect(StreamDestination destination) {
+        if (destination.reconnectTask != null) {
+            mHandler.removeCallbacks(destination.reconnectTask);
+            destination.reconnectTask = null;
+        }
+        destination.reconnectAttempt = 0;
+    }
+
+    private void runStatisticsTask() {
+        cancelStatisticsTask();
+        mUpdateStatisticsTask = mScheduler.scheduleWithFixedDelay(mCollectStatistics,
+                mStatisticsInterval, mStatisticsInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelStatisticsTask() {
+        if (mUpdateStatisticsTask != null) {
+            mUpdateStatisticsTask.cancel(false);
+            mUpdateStatisticsTask = null;
+        }
     }
 
+    // Polls streamer on scheduler thread, results are handled by mUpdateStatistics on main thread
+    private final Runnable mCollectStatistics = new Runnable() {
+        @Override
+        public void run() {
+            final StreamerGL streamer = mStreamerGL;
+            if (streamer == null) {
+                return;
+            }
+            boolean updated = false;
+            for (StreamDestination destination : mDestinations) {
+                final int id = destination.connectionId;
+                final ConnectionStatistics statistics = mConnectionStatistics.get(id);
+                if (id <= 0 || statistics == null) {
+                    continue;
+                }
+                statistics.update(streamer, id);
+                updated = true;
+            }
+            if (updated) {
+                mHandler.post(mUpdateStatistics);
+            }
+        }
+    };
 
-    public static File createVideoPath(Context context, String fileName) {
-        File imageThumbsDirectory = context.getExternalFilesDir("FOLDER");
-        if (imageThumbsDirectory != null) {
-            if (!imageThumbsDirectory.exists()) {
-                imageThumbsDirectory.mkdir();
+
+    // Runs on scheduler thread at telemetry rate
+    private void sampleTelemetry(StatsTelemetry telemetry) {
+        final StreamerGL streamer = mStreamerGL;
+        final StreamConditionerBase conditioner = mConditioner;
+        mTelemetryDestinations.clear();
+        if (streamer != null) {
+            for (StreamDestination destination : mDestinations) {
+                final int id = destination.connectionId;
+                final ConnectionStatistics statistics = mTelemetryStatistics.get(id);
+                if (id > 0 && statistics != null) {
+                    statistics.update(streamer, id);
+                    mTelemetryDestinations.add(destination);
+                }
+            }
+        }
+
+        final boolean adaptive = conditioner != null && conditioner.getBitrate() > 0;
+        telemetry.beginSample(System.currentTimeMillis(),
+                adaptive ? conditioner.getBitrate() : mVideoBitrate,
+                adaptive ? conditioner.getFps() : mVideoFps,
+                adaptive ? conditioner.getStep() : -1,
+                mTelemetryDestinations.size());
+        for (StreamDestination destination : mTelemetryDestinations) {
+            final int id = destination.connectionId;
+            ConnectionStatistics statistics = mTelemetryStatistics.get(id);
+            if (statistics == null) {
+                // Released while sampling, frame still needs as many records as announced
+                statistics = new ConnectionStatistics();
             }
+            final Streamer.ConnectionState state = mConnectionState.get(id);
+            telemetry.addConnection(id,
+                    state != null ? state.ordinal() : -1,
+                    StatsTelemetry.protocolOf(destination.uri),
+                    statistics.getRistQuality(),
+                    statistics.getBandwidth(),
+                    statistics.getTraffic(),
+                    statistics.getAudioFramesSkipped(),
+                    statistics.getVideoFramesSkipped(),
+                    statistics.getRtt(),
+                    statistics.getSndDrop());
         }
-        String appDir = context.getExternalFilesDir(Environment.DIRECTORY_PICTURES).getAbsolutePath();
-        File file = new File(appDir, fileName);
-        return file;
     }
 
+    String startRecord(Object arguments) {
+        if (mRecorder.isRecording()) {
+            return "";
+        }
+        final String name = mRecorder.start(mStreamerGL, SegmentedRecorder.Options.from(arguments));
+        return name != null ? name : "";
+    }
+
+    void stopRecord() {
+        mRecorder.stop();
+    }
+
+    private int recordBitrate() {
+        final StreamConditionerBase conditioner = mConditioner;
+        return conditioner != null && conditioner.getBitrate() > 0 ? conditioner.getBitrate() : mVideoBitrate;
+    }
+
+    private void onRecordSegment(String state, int index, Uri uri, String name) {
+        final SegmentedRecorder.Options options = mRecorder.getOptions();
+        if ("completed".equals(state) && uri != null && options != null && options.upload) {
+            LarixUploads.get(mContext).enqueue(uri.toString(), name);
+        }
+        final Map<String, Object> data = new HashMap<>();
+        data.put("state", state);
+        data.put("index", index);
+        data.put("uri", uri != null ? uri.toString() : null);
+        data.put("name", name);
+        methodChannel.invokeMethod("recordSegment", data);
+    }
+
+
     protected final Runnable mUpdateStatistics = new Runnable() {
         @Override
         public void run() {
@@ -468,68 +1085,51 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
                 return;
             }
 
-            if (connectionId == 0) {
-                return;
+            for (StreamDestination destination : mDestinations) {
+                updateStatistics(destination);
             }
+        }
+    };
+
+    private void updateStatistics(StreamDestination destination) {
+        final int id = destination.connectionId;
+        if (id <= 0) {
+            return;
+        }
 
-            Streamer.ConnectionState state = mConnectionState.get(connectionId);
-            //Log.e("STATE", "Value: " + state);
-            if (state == Streamer.ConnectionState.RECORD) {
-                ConnectionStatistics statistics = mConnectionStatistics.get(connectionId);
-                if (statistics != null) {
-                    statistics.update(mStreamerGL, connectionId);
+        Streamer.ConnectionState state = mConnectionState.get(id);
+        if (state == Streamer.ConnectionState.RECORD) {
+            ConnectionStatistics statistics = mConnectionStatistics.get(id);
+            if (statistics != null) {
+                // Telemetry subscribers get the same numbers in binary frames
+                if (!mTelemetry.isListening()) {
                     Map<String, Object> data = new HashMap<>();
+                    data.put("connectionId", id);
+                    data.put("uri", destination.uri);
                     data.put("bandwidth", statistics.getBandwidth());
                     data.put("traffic", statistics.getTraffic());
                     methodChannel.invokeMethod("connectionStatistics", data);
+                }
 
-                    if (statistics.getBandwidth() > 0) {
-                        connectionStatus(true);
-                        if (reconnectTimerTask != null) {
-                            Log.e("STREAM GL", "CANCEL!!!!!!");
-                            reconnectTimerTask.cancel();
-                            reconnectTimerTask = null;
-                            reconnectTimer.cancel();
-                            reconnectTimer = null;
-                        }
+                if (statistics.getBandwidth() > 0) {
+                    connectionStatus(destination, true);
+                    cancelReconnect(destination);
+                    if (mConditioner != null && mConditioner.getBitrate() > 0) {
+                        mLastGoodBitrate = mConditioner.getBitrate();
+                        mLastGoodTs = System.currentTimeMillis();
                     }
                 }
-            }else if (state == Streamer.ConnectionState.IDLE || state == Streamer.ConnectionState.DISCONNECTED) {
-                ConnectionStatistics statistics = mConnectionStatistics.get(connectionId);
-                if (statistics != null) {
-                    statistics.update(mStreamerGL, connectionId);
-                    Map<String, Object> data = new HashMap<>();
-                    data.put("bandwidth", statistics.getBandwidth());
-                    data.put("traffic", statistics.getTraffic());
-                }
-                connectionStatus(false);
-
-                if (reconnectTimerTask == null) {
-                    reconnectTimerTask = new TimerTask() {
-                        @Override
-                        public void run() {
-                            Log.e("STREAM GL", "RECONNECT TIMER.....");
-                            if (mStreamerGL != null) {
-                                mStreamerGL.releaseConnection(connectionId);
-                            }
-                            if (mConditioner != null) {
-                                mConditioner.removeConnection(connectionId);
-                            }
-                            maybeCreateStream();
-                        }
-                    };
-                }
-                if (reconnectTimer == null) {
-                    reconnectTimer = new Timer();
-                    reconnectTimer.schedule(reconnectTimerTask, 10000, 10000);
-                }
-
             }
+        } else if (state == Streamer.ConnectionState.IDLE || state == Streamer.ConnectionState.DISCONNECTED) {
+            connectionStatus(destination, false);
+            scheduleReconnect(destination);
         }
-    };
+    }
 
-    void connectionStatus(boolean connected) {
+    void connectionStatus(StreamDestination destination, boolean connected) {
         Map<String, Object> data = new HashMap<>();
+        data.put("connectionId", destination.connectionId);
+        data.put("uri", destination.uri);
         data.put("isConnected", connected);
         methodChannel.invokeMethod("connectionStatus", data);
     }
@@ -553,6 +1153,48 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
     @Override
     public void onVideoCaptureStateChanged(Streamer.CaptureState state) {
         mVideoCaptureState = state;
+        if (state == Streamer.CaptureState.ENCODER_FAIL) {
+            fallbackToAvc("encoder");
+        } else if (state == Streamer.CaptureState.FAILED) {
+            failPendingStarts("CAPTURE_FAILED", "Video capture failed");
+        } else {
+            maybeRestartStream();
+            maybeCompleteStarts();
+        }
+        updateStandby();
+    }
+
+    // Standby probes ingest between preview start and go-live only
+    private void updateStandby() {
+        boolean publishing = false;
+        for (StreamDestination destination : mDestinations) {
+            publishing |= destination.isActive() || destination.reconnectTask != null;
+        }
+        if (!mStandbyEnabled || publishing || !isCaptureStarted()) {
+            mStandby.stop();
+            return;
+        }
+        final List<String> uris = new ArrayList<>();
+        for (StreamDestination destination : mDestinations) {
+            uris.add(destination.uri);
+        }
+        for (String uri : mIngestSelector.uris()) {
+            if (!uris.contains(uri)) {
+                uris.add(uri);
+            }
+        }
+        mStandby.start(uris, mStandbyInterval);
+    }
+
+    private void onStandby(IngestStandby.Probe probe) {
+        mIngestSelector.onProbe(probe);
+        final Map<String, Object> data = new HashMap<>();
+        data.put("uri", probe.uri);
+        data.put("ready", probe.ready);
+        data.put("resolveMs", probe.resolveMs);
+        data.put("connectMs", probe.connectMs);
+        data.put("error", probe.error);
+        methodChannel.invokeMethod("standbyChanged", data);
     }
 
     @Override
@@ -594,29 +1236,60 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
     public void onMethodCall(@NonNull MethodCall call, @NonNull MethodChannel.Result result) {
 
         switch(call.method) {
-            case "startStream":
-                maybeCreateStream();
-                result.success(connectionId);
-                break;
-            case "stopStream":
-                if (mConditioner != null) {
-                    mConditioner.removeConnection(connectionId);
+            case "startStream": {
+                if (call.arguments instanceof Map && call.hasArgument("urls")) {
+                    setDestinations(call.argument("urls"));
+                }
+                if (call.arguments instanceof Map && call.hasArgument("ingestUrls")) {
+                    mIngestSelector.setUris(call.argument("ingestUrls"));
+                }
+                final Number timeout = call.arguments instanceof Map ? call.argument("startTimeout") : null;
+                final long startTimeout = timeout != null ? timeout.longValue() : 0;
+                if (!mIngestSelector.hasCandidates()) {
+                    startStream(result, startTimeout);
+                    updateStandby();
+                } else if (mIngestSelector.isStale()) {
+                    // Probing takes up to connect timeout, capture usually isn't ready sooner anyway
+                    mIngestSelector.probe(ranking -> {
+                        useIngest(mIngestSelector.current(), "probe");
+                        startStream(result, startTimeout);
+                        updateStandby();
+                    });
+                } else {
+                    mIngestSelector.rank();
+                    useIngest(mIngestSelector.current(), "probe");
+                    startStream(result, startTimeout);
+                    updateStandby();
                 }
-                mStreamerGL.releaseConnection(connectionId);
-                mConnectionState.remove(connectionId);
-
-                result.success(connectionId);
                 break;
+            }
+            case "stopStream": {
+                final int id = primaryConnectionId();
+                releaseConnections();
+                updateStandby();
+                result.success(id);
+                break;
+            }
+            case "setStandby": {
+                final Boolean enabled = call.argument("enabled");
+                final Number interval = call.argument("interval");
+                mStandbyEnabled = Boolean.TRUE.equals(enabled);
+                mStandbyInterval = interval != null && interval.longValue() > 0
+                        ? interval.longValue() : IngestStandby.DEFAULT_INTERVAL;
+                updateStandby();
+                result.success(null);
+                break;
+            }
             case "startRecord":
-                String fileName = call.arguments.toString();
-                String filePath = startRecord(fileName);
+                String filePath = startRecord(call.arguments);
                 result.success(filePath);
                 break;
             case "stopRecord":
                 stopRecord();
+                result.success(null);
                 break;
             case "isRecording":
-                result.success(recording);
+                result.success(mRecorder.isRecording());
                 break;
             case "flipCamera":
                 for (CameraInfo info : cameraList) {
@@ -680,6 +1353,20 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
                 changeFocusMode(autoFocus, focusDistance);
                 result.success(focus);
                 break;
+            case "getQualityLadder":
+                final List<Map<String, Object>> rungs = new ArrayList<>();
+                if (mQualityLadder != null) {
+                    for (QualityLadder.Rung rung : mQualityLadder.rungs()) {
+                        final Map<String, Object> item = new HashMap<>();
+                        item.put("width", rung.size.width);
+                        item.put("height", rung.size.height);
+                        item.put("fps", rung.fps);
+                        item.put("bitrate", rung.bitrate);
+                        rungs.add(item);
+                    }
+                }
+                result.success(rungs);
+                break;
             case "getCameraInfo":
                 List<HashMap<String, Object>> camerasList = new ArrayList<>();
                 for (CameraInfo info : cameraList) {
@@ -716,25 +1403,36 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
             case "getBitRate":
                 result.success(mCurrentBitrate);
                 break;
+            case "setStatisticsInterval":
+                mStatisticsInterval = Math.max(100, new Integer(call.arguments.toString()));
+                if (mUpdateStatisticsTask != null) {
+                    runStatisticsTask();
+                }
+                result.success(null);
+                break;
+            case "setReconnectPolicy":
+                if (call.arguments instanceof Map) {
+                    mReconnectPolicy.update((Map<?, ?>) call.arguments);
+                }
+                result.success(null);
+                break;
             case "reconnect":
                 if (mStreamerGL == null) {
                     createStreamer(bitRateValue);
                     return;
                 }
-                if (mConditioner != null) {
-                    mConditioner.removeConnection(connectionId);
-                }
-                mStreamerGL.releaseConnection(connectionId);
+                releaseConnections();
                 maybeCreateStream();
                 result.success("true");
                 break;
             case "stopAutomaticBitRate":
-                mConditioner.stop();
+                if (mConditioner != null) {
+                    mConditioner.stop();
+                }
+                result.success(null);
                 break;
             case "startAutomaticBitRate":
-                int bitrate = new Integer(call.arguments.toString());
-                mConditioner.addConnection(connectionId);
-                mConditioner.start(mStreamerGL);
+                startAutomaticBitRate(call, result);
                 break;
             case "requestPermissions":
                 cameraPermissions.requestPermissions(
@@ -767,13 +1465,9 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
                 }
                 break;
             case "disposeCamera":
-                if (mConditioner != null) {
-                    mConditioner.removeConnection(connectionId);
-                }
-                if (mStreamerGL != null) {
-                    mStreamerGL.release();
-                    mStreamerGL = null;
-                }
+                releaseConnections();
+                releaseStreamer();
+                updateStandby();
                 break;
             default:
                 result.notImplemented();
@@ -781,6 +1475,57 @@ class LarixNativeView implements PlatformView, Streamer.Listener, Application.Ac
 
     }
 
+    // Arguments are either bitrate (older Dart side) or
+    // {"bitrate": int, "strategy": String, "checkInterval": int, "adaptResolution": bool}.
+    // Replies with strategy started, null without streamer.
+    private void startAutomaticBitRate(MethodCall call, MethodChannel.Result result) {
+        int bitrate = 0;
+        String strategy = null;
+        Number checkInterval = null;
+        boolean adaptResolution = mAutoResolution;
+        if (call.arguments instanceof Map) {
+            final Number value = call.argument("bitrate");
+            bitrate = value == null ? 0 : value.intValue();
+            strategy = call.argument("strategy");
+            checkInterval = call.argument("checkInterval");
+            final Boolean adapt = call.argument("adaptResolution");
+            if (adapt != null) {
+                adaptResolution = adapt;
+            }
+        } else if (call.arguments != null) {
+            bitrate = new Integer(call.arguments.toString());
+        }
+        if (strategy != null && !strategy.isEmpty() && !StreamConditionerRegistry.AUTO.equals(strategy)
+                && !StreamConditionerRegistry.names().contains(strategy)) {
+            result.error("UNKNOWN_STRATEGY", "Unknown bitrate strategy \"" + strategy + "\", registered: "
+                    + StreamConditionerRegistry.names(), null);
+            return;
+        }
+        if (mStreamerGL == null) {
+            result.success(null);
+            return;
+        }
+        if (mConditioner != null) {
+            mConditioner.stop();
+        }
+        final String resolved = StreamConditionerRegistry.resolve(strategy, primaryUri());
+        mConditioner = StreamConditionerBase.newInstance(mContext,
+                resolved, bitrate > 0 ? bitrate : mVideoBitrate, activeCameraInfo, mScheduler);
+        if (checkInterval != null) {
+            mConditioner.setCheckInterval(checkInterval.longValue());
+        }
+        mAdaptResolution = adaptResolution;
+        setResolutionSwitching(mConditioner, adaptResolution);
+        setGovernorLimits(mConditioner);
+        for (StreamDestination destination : mDestinations) {
+            if (destination.isActive()) {
+                mConditioner.addConnection(destination.connectionId);
+            }
+        }
+        mConditioner.start(mStreamerGL);
+        result.success(resolved);
+    }
+
     protected double zoom(float scaleFactor, boolean isManual) {
         if (mStreamerGL == null || mVideoCaptureState != Streamer.CaptureState.STARTED) {
             return 0.0;
@@ -7,6 +7,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
 
 import br.com.devmagic.flutter_larix.camera.CameraPermissions;
 import io.flutter.Log;
@@ -20,18 +21,23 @@ class LarixNativeViewFactory extends PlatformViewFactory {
     Activity act;
     @NonNull
     private final BinaryMessenger messenger;
+    private final ScheduledExecutorService scheduler;
+    private final StatsTelemetry telemetry;
 
-    LarixNativeViewFactory(@NonNull BinaryMessenger messenger, CameraPermissions.PermissionsRegistry permissionsRegistry, Activity activity) {
+    LarixNativeViewFactory(@NonNull BinaryMessenger messenger, CameraPermissions.PermissionsRegistry permissionsRegistry, Activity activity,
+                           ScheduledExecutorService scheduler, StatsTelemetry telemetry) {
         super(StandardMessageCodec.INSTANCE);
         this.permissionsRegistry = permissionsRegistry;
         act = activity;
         this.messenger = messenger;
+        this.scheduler = scheduler;
+        this.telemetry = telemetry;
     }
 
     @NonNull
     @Override
     public PlatformView create(@NonNull Context context, int id, @Nullable Object args) {
         final Map<String, Object> creationParams = (Map<String, Object>) args;
-        return new LarixNativeView(messenger, permissionsRegistry,new CameraPermissions(), act, context, id, creationParams);
+        return new LarixNativeView(messenger, permissionsRegistry,new CameraPermissions(), act, context, id, creationParams, scheduler, telemetry);
     }
 }
\ No newline at end of file
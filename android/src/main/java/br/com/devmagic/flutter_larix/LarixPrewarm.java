@@ -0,0 +1,94 @@
+package br.com.devmagic.flutter_larix;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import br.com.devmagic.flutter_larix.camera.CameraCache;
+import br.com.devmagic.flutter_larix.libcommon.EncoderDatabase;
+import io.flutter.Log;
+
+// Fills camera and encoder caches on a background thread before the first initCamera,
+// so createStreamer finds camera list and codec capabilities ready instead of querying them on main thread.
+// Runs once per process, later calls just wait for the same result.
+final class LarixPrewarm {
+    private static final String TAG = "LarixPrewarm";
+
+    // Manifest <meta-data> flag to warm up as soon as plugin is attached to engine
+    static final String META_DATA_KEY = "br.com.devmagic.flutter_larix.PREWARM";
+
+    // Called on main thread with warm-up duration in ms
+    interface Callback {
+        void onPrewarmed(long elapsed);
+    }
+
+    private static Thread sThread;
+    private static long sElapsed = -1;
+    private static final List<Callback> sCallbacks = new ArrayList<>();
+    private static final Handler sHandler = new Handler(Looper.getMainLooper());
+
+    private LarixPrewarm() {
+    }
+
+    static synchronized void start(final Context context, final Callback callback) {
+        if (sElapsed >= 0) {
+            if (callback != null) {
+                final long elapsed = sElapsed;
+                sHandler.post(() -> callback.onPrewarmed(elapsed));
+            }
+            return;
+        }
+        if (callback != null) {
+            sCallbacks.add(callback);
+        }
+        if (sThread != null) {
+            return;
+        }
+        final Context appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+        sThread = new Thread(() -> run(appContext), "LarixPrewarm");
+        sThread.setDaemon(true);
+        sThread.setPriority(Thread.NORM_PRIORITY - 1);
+        sThread.start();
+    }
+
+    private static void run(final Context context) {
+        final long start = System.currentTimeMillis();
+        try {
+            final boolean camera2 = CameraCache.allowCamera2Support(context);
+            // Camera1 enumeration opens cameras, that needs permission which may not be granted yet
+            if (camera2 || ContextCompat.checkSelfPermission(context, Manifest.permission.CAMERA)
+                    == PackageManager.PERMISSION_GRANTED) {
+                CameraCache.getCameraList(context, camera2);
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                // One MediaCodecList walk, verifyResolution and codec settings only look it up afterwards
+                EncoderDatabase.get();
+            }
+        } catch (RuntimeException e) {
+            // Nothing is cached, createStreamer will query it again and report real error
+            Log.w(TAG, "Prewarm failed: " + e.getMessage());
+        }
+        finish(System.currentTimeMillis() - start);
+    }
+
+    private static synchronized void finish(final long elapsed) {
+        Log.d(TAG, "Prewarm done in " + elapsed + "ms");
+        sElapsed = elapsed;
+        sThread = null;
+        final List<Callback> callbacks = new ArrayList<>(sCallbacks);
+        sCallbacks.clear();
+        sHandler.post(() -> {
+            for (Callback callback : callbacks) {
+                callback.onPrewarmed(elapsed);
+            }
+        });
+    }
+}
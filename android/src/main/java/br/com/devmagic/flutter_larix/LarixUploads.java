@@ -0,0 +1,134 @@
+package br.com.devmagic.flutter_larix;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import br.com.devmagic.flutter_larix.upload.UploadItem;
+import br.com.devmagic.flutter_larix.upload.UploadQueue;
+
+// Process-wide upload queue for recorded files, created on first use.
+// Queue state lives in files dir, so uploads left from previous process continue as soon as queue is created.
+// Views hold the queue while streaming, recorded copy must not compete with live stream for uplink.
+final class LarixUploads {
+    private static final String STATE_FILE = "larix_uploads.properties";
+
+    // Called on main thread
+    interface Listener {
+        void onUploadChanged(UploadItem item);
+    }
+
+    private static UploadQueue sQueue;
+    private static final Set<Object> sHolds = new HashSet<>();
+    private static final List<Listener> sListeners = new ArrayList<>();
+    private static final Handler sHandler = new Handler(Looper.getMainLooper());
+
+    private LarixUploads() {
+    }
+
+    static synchronized UploadQueue get(Context context) {
+        if (sQueue == null) {
+            final Context appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+            sQueue = new UploadQueue(new File(appContext.getFilesDir(), STATE_FILE),
+                    new ContentSource(appContext), LarixUploads::dispatch);
+            for (Object key : sHolds) {
+                sQueue.setHold(key, true);
+            }
+        }
+        return sQueue;
+    }
+
+    // Remembered until queue is created, so a stream started before first upload still holds it
+    static synchronized void setHold(Object key, boolean hold) {
+        if (hold ? !sHolds.add(key) : !sHolds.remove(key)) {
+            return;
+        }
+        if (sQueue != null) {
+            sQueue.setHold(key, hold);
+        }
+    }
+
+    static synchronized void addListener(Listener listener) {
+        sListeners.add(listener);
+    }
+
+    static synchronized void removeListener(Listener listener) {
+        sListeners.remove(listener);
+    }
+
+    private static void dispatch(final UploadItem item) {
+        sHandler.post(() -> {
+            final List<Listener> listeners;
+            synchronized (LarixUploads.class) {
+                listeners = new ArrayList<>(sListeners);
+            }
+            for (Listener listener : listeners) {
+                listener.onUploadChanged(item);
+            }
+        });
+    }
+
+    // Plain paths, file:// uris and content:// uris from MediaStore or SAF
+    private static final class ContentSource implements UploadQueue.Source {
+        private final Context mContext;
+
+        ContentSource(Context context) {
+            mContext = context;
+        }
+
+        @Override
+        public long length(String uri) throws IOException {
+            final File file = asFile(uri);
+            if (file != null) {
+                if (!file.exists()) {
+                    throw new FileNotFoundException(uri);
+                }
+                return file.length();
+            }
+            try (ParcelFileDescriptor descriptor = mContext.getContentResolver().openFileDescriptor(Uri.parse(uri), "r")) {
+                if (descriptor == null || descriptor.getStatSize() < 0) {
+                    throw new IOException("Unknown length of " + uri);
+                }
+                return descriptor.getStatSize();
+            } catch (SecurityException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public InputStream open(String uri) throws IOException {
+            final File file = asFile(uri);
+            if (file != null) {
+                return new FileInputStream(file);
+            }
+            try {
+                final InputStream in = mContext.getContentResolver().openInputStream(Uri.parse(uri));
+                if (in == null) {
+                    throw new FileNotFoundException(uri);
+                }
+                return in;
+            } catch (SecurityException e) {
+                throw new IOException(e);
+            }
+        }
+
+        private static File asFile(String uri) {
+            if (uri.startsWith("file://")) {
+                return new File(Uri.parse(uri).getPath());
+            }
+            return uri.contains("://") ? null : new File(uri);
+        }
+    }
+}
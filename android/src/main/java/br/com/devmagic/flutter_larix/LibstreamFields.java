@@ -0,0 +1,57 @@
+package br.com.devmagic.flutter_larix;
+
+import android.media.MediaCodec;
+
+import com.wmspanel.libstream.Streamer;
+
+import java.lang.reflect.Field;
+
+// Private libstream fields KeyFrameRequester reaches the video MediaCodec through:
+// Streamer.mVideoEncoder, then mEncoder declared by its MediaCodecState superclass.
+// consumer-rules.pro keeps them from shrinking. They were verified against the vendored AAR
+// with the hash below; :libstreamcheck:fieldsCheck fails when they are gone or the AAR
+// was replaced without checking them again and updating the hash.
+final class LibstreamFields {
+    // sha256 of libs/libstream-release.aar
+    static final String VERIFIED_AAR_SHA256 = "e929c16eb2ed088248827ecee7eb78574710d05b25727a390730fec34b7616ed";
+
+    static final String VIDEO_ENCODER = "mVideoEncoder";
+    static final String CODEC = "mEncoder";
+
+    private final Field mVideoEncoder;
+    private final Field mCodec;
+
+    private LibstreamFields(Field videoEncoder, Field codec) {
+        mVideoEncoder = videoEncoder;
+        mCodec = codec;
+    }
+
+    // Resolved from declared types, so a renamed or retyped field fails here, not mid stream
+    static LibstreamFields resolve() throws ReflectiveOperationException {
+        final Field videoEncoder = findField(Streamer.class, VIDEO_ENCODER);
+        final Field codec = findField(videoEncoder.getType(), CODEC);
+        if (codec.getType() != MediaCodec.class) {
+            throw new NoSuchFieldException(CODEC + " is " + codec.getType().getName() + ", not MediaCodec");
+        }
+        return new LibstreamFields(videoEncoder, codec);
+    }
+
+    // Null while streamer has no video encoder
+    MediaCodec videoCodec(Streamer streamer) throws IllegalAccessException {
+        final Object encoder = mVideoEncoder.get(streamer);
+        return encoder != null ? (MediaCodec) mCodec.get(encoder) : null;
+    }
+
+    private static Field findField(Class<?> type, String name) throws NoSuchFieldException {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            try {
+                final Field field = c.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                // Declared in a superclass
+            }
+        }
+        throw new NoSuchFieldException(type.getName() + "." + name);
+    }
+}
@@ -0,0 +1,141 @@
+package br.com.devmagic.flutter_larix;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.Build;
+import android.os.Handler;
+
+import io.flutter.Log;
+
+// Follows system default network, so connections can move to new one as soon as it is there
+// instead of waiting for old sockets to time out on a network which is gone.
+// First default network seen after start() is taken as the one connections already use.
+class NetworkMonitor {
+    private static final String TAG = "NetworkMonitor";
+
+    // Part of reported uplink bandwidth stream may take, estimate is optimistic and shared with other apps
+    static final double UPLINK_SHARE = 0.5;
+    // Starting point on cellular when modem doesn't report bandwidth
+    static final double CELLULAR_FRAC = 0.5;
+
+    static final String TRANSPORT_WIFI = "wifi";
+    static final String TRANSPORT_CELLULAR = "cellular";
+    static final String TRANSPORT_ETHERNET = "ethernet";
+    static final String TRANSPORT_OTHER = "other";
+
+    // Called on main thread
+    interface Listener {
+        // Default network is a different one than connections were opened on
+        void onNetworkChanged(String transport, int upstreamKbps);
+    }
+
+    private final ConnectivityManager mConnectivityManager;
+    private final Handler mHandler;
+    private final Listener mListener;
+    private ConnectivityManager.NetworkCallback mCallback;
+
+    // Main thread only
+    private boolean mInitialized;
+    private Network mNetwork;
+
+    NetworkMonitor(Context context, Handler handler, Listener listener) {
+        mConnectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        mHandler = handler;
+        mListener = listener;
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    void start() {
+        if (mCallback != null || mConnectivityManager == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return;
+        }
+        mCallback = new ConnectivityManager.NetworkCallback() {
+            // Callbacks come on ConnectivityManager's thread
+            @Override
+            public void onAvailable(Network network) {
+                final NetworkCapabilities capabilities = mConnectivityManager.getNetworkCapabilities(network);
+                mHandler.post(() -> onDefaultNetwork(network, capabilities));
+            }
+
+            @Override
+            public void onLost(Network network) {
+                mHandler.post(() -> {
+                    if (network.equals(mNetwork)) {
+                        Log.d(TAG, "Default network lost");
+                        mNetwork = null;
+                    }
+                });
+            }
+        };
+        try {
+            mConnectivityManager.registerDefaultNetworkCallback(mCallback);
+        } catch (RuntimeException e) {
+            // SecurityException without ACCESS_NETWORK_STATE, or too many callbacks registered by app
+            Log.w(TAG, "Failed to register network callback: " + e.getMessage());
+            mCallback = null;
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    void stop() {
+        if (mCallback == null) {
+            return;
+        }
+        try {
+            mConnectivityManager.unregisterNetworkCallback(mCallback);
+        } catch (IllegalArgumentException e) {
+            // Not registered
+        }
+        mCallback = null;
+        mInitialized = false;
+        mNetwork = null;
+    }
+
+    private void onDefaultNetwork(Network network, NetworkCapabilities capabilities) {
+        if (mCallback == null || network.equals(mNetwork)) {
+            return;
+        }
+        mNetwork = network;
+        if (!mInitialized) {
+            mInitialized = true;
+            return;
+        }
+        final String transport = transport(capabilities);
+        final int upstreamKbps = capabilities != null ? capabilities.getLinkUpstreamBandwidthKbps() : 0;
+        Log.d(TAG, "Default network changed to " + transport + ", uplink " + upstreamKbps + "kbps");
+        mListener.onNetworkChanged(transport, upstreamKbps);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    static String transport(NetworkCapabilities capabilities) {
+        if (capabilities == null) {
+            return TRANSPORT_OTHER;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+            return TRANSPORT_WIFI;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+            return TRANSPORT_ETHERNET;
+        }
+        if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            return TRANSPORT_CELLULAR;
+        }
+        return TRANSPORT_OTHER;
+    }
+
+    // Bitrate to start with on new network: reported uplink share when there is one,
+    // otherwise full bitrate on wifi/ethernet and part of it on anything else
+    static int estimateBitrate(String transport, int upstreamKbps, int fullBitrate) {
+        double bitrate = fullBitrate;
+        if (!TRANSPORT_WIFI.equals(transport) && !TRANSPORT_ETHERNET.equals(transport)) {
+            bitrate *= CELLULAR_FRAC;
+        }
+        if (upstreamKbps > 0) {
+            bitrate = Math.min(fullBitrate, upstreamKbps * 1000.0 * UPLINK_SHARE);
+        }
+        return (int) Math.round(bitrate);
+    }
+}
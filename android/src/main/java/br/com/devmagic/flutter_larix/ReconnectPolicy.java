@@ -0,0 +1,77 @@
+package br.com.devmagic.flutter_larix;
+
+import java.util.Map;
+import java.util.Random;
+
+// Jittered exponential backoff for reconnect attempts.
+// Jitter spreads clients which lost network at the same time (e.g. behind one cell tower),
+// so they don't hit ingest server all at once.
+class ReconnectPolicy {
+    long initialDelay = 1000;
+    long maxDelay = 60_000;
+    double multiplier = 2.0;
+    double jitter = 0.5; // Randomized fraction of each delay, 0.0..1.0
+    int maxAttempts = 12; // 0 retries forever
+    long resumeWindow = 30_000; // Outage shorter than this resumes at last known-good bitrate
+
+    static final long FAST_FIRST_DELAY = 250;
+    static final long SLOW_MIN_DELAY = 15_000;
+    static final int SLOW_MAX_ATTEMPTS = 4;
+
+    private final Random mRandom = new Random();
+
+    // Attempt numbering starts from 1
+    long delayFor(int attempt) {
+        final double delay = Math.min(maxDelay, initialDelay * Math.pow(multiplier, Math.max(0, attempt - 1)));
+        return Math.round(delay * (1.0 - jitter) + delay * jitter * mRandom.nextDouble());
+    }
+
+    boolean canRetry(int attempt) {
+        return maxAttempts <= 0 || attempt <= maxAttempts;
+    }
+
+    // Delay shaped by why connection failed: transient network errors retry at once,
+    // a busy stream key waits for server to drop the stale session
+    long delayFor(int attempt, ConnectionFailure.Retry retry) {
+        switch (retry) {
+            case FAST:
+                return attempt <= 1 ? FAST_FIRST_DELAY : delayFor(attempt - 1);
+            case SLOW:
+                return Math.max(SLOW_MIN_DELAY, delayFor(attempt));
+            default:
+                return delayFor(attempt);
+        }
+    }
+
+    // Permanent failures are never retried, retrying a rejected key only loads the server
+    boolean canRetry(int attempt, ConnectionFailure.Retry retry) {
+        switch (retry) {
+            case NEVER:
+                return false;
+            case SLOW:
+                return attempt <= SLOW_MAX_ATTEMPTS && canRetry(attempt);
+            default:
+                return canRetry(attempt);
+        }
+    }
+
+    // Arguments from Dart side, missing keys keep current values
+    void update(Map<?, ?> args) {
+        initialDelay = Math.max(100, getLong(args, "initialDelay", initialDelay));
+        maxDelay = Math.max(initialDelay, getLong(args, "maxDelay", maxDelay));
+        multiplier = Math.max(1.0, getDouble(args, "multiplier", multiplier));
+        jitter = Math.min(1.0, Math.max(0.0, getDouble(args, "jitter", jitter)));
+        maxAttempts = (int) Math.max(0, getLong(args, "maxAttempts", maxAttempts));
+        resumeWindow = Math.max(0, getLong(args, "resumeWindow", resumeWindow));
+    }
+
+    private static long getLong(Map<?, ?> args, String key, long defValue) {
+        final Object value = args.get(key);
+        return value instanceof Number ? ((Number) value).longValue() : defValue;
+    }
+
+    private static double getDouble(Map<?, ?> args, String key, double defValue) {
+        final Object value = args.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : defValue;
+    }
+}
@@ -0,0 +1,294 @@
+package br.com.devmagic.flutter_larix;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.Handler;
+
+import com.wmspanel.libstream.Streamer;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Map;
+
+import br.com.devmagic.flutter_larix.libcommon.MediaFileUtils;
+import io.flutter.Log;
+
+// Local recording split into segments of limited duration and size, oldest segments removed by retention limits.
+// Streamer.splitRecord() switches files without gap, so a crash or a slow finalization costs one segment at most.
+// Main thread only, like Streamer.Listener callbacks.
+class SegmentedRecorder {
+    private static final String TAG = "SegmentedRecorder";
+
+    static final String STORAGE_APP = "app"; // App's external files dir, the default
+    static final String STORAGE_DCIM = "dcim";
+    static final String STORAGE_SAF = "saf";
+    static final String DCIM_DIRNAME = "FlutterLarix";
+
+    static final long CHECK_INTERVAL = 1000;
+    // Audio is not in encoder bitrate, size estimate adds typical AAC bitrate
+    static final int AUDIO_BITRATE = 128_000;
+
+    interface Listener {
+        // state is "completed", "deleted" or "failed"
+        void onSegment(String state, int index, Uri uri, String name);
+    }
+
+    // Encoder bitrate, used to estimate segment size when storage doesn't give file length
+    interface BitrateSource {
+        int bitrate();
+    }
+
+    // Start arguments are either file name (older Dart side) or
+    // {"fileName": String, "storage": String, "safUri": String, "segmentDuration": ms,
+    //  "segmentSize": bytes, "maxSegments": int, "maxTotalSize": bytes, "upload": bool}
+    static final class Options {
+        String fileName = "";
+        String storage = STORAGE_APP;
+        String safUri;
+        long segmentDuration; // 0 for no limit
+        long segmentSize; // 0 for no limit
+        int maxSegments; // 0 keeps all
+        long maxTotalSize; // 0 keeps all
+        boolean upload; // Finished segments go to LarixUploads queue
+
+        static Options from(Object arguments) {
+            final Options options = new Options();
+            if (arguments instanceof Map) {
+                final Map<?, ?> args = (Map<?, ?>) arguments;
+                options.fileName = getString(args, "fileName", options.fileName);
+                options.storage = getString(args, "storage", options.storage);
+                options.safUri = getString(args, "safUri", null);
+                options.segmentDuration = Math.max(0, getLong(args, "segmentDuration", 0));
+                options.segmentSize = Math.max(0, getLong(args, "segmentSize", 0));
+                options.maxSegments = (int) Math.max(0, getLong(args, "maxSegments", 0));
+                options.maxTotalSize = Math.max(0, getLong(args, "maxTotalSize", 0));
+                options.upload = Boolean.TRUE.equals(args.get("upload"));
+            } else if (arguments != null) {
+                options.fileName = arguments.toString();
+            }
+            return options;
+        }
+
+        boolean isSegmented() {
+            return segmentDuration > 0 || segmentSize > 0;
+        }
+
+        private static String getString(Map<?, ?> args, String key, String defValue) {
+            final Object value = args.get(key);
+            return value != null ? value.toString() : defValue;
+        }
+
+        private static long getLong(Map<?, ?> args, String key, long defValue) {
+            final Object value = args.get(key);
+            return value instanceof Number ? ((Number) value).longValue() : defValue;
+        }
+    }
+
+    private static final class Segment {
+        final int index;
+        Uri uri;
+        Streamer.SaveMethod method;
+        long size;
+
+        Segment(int index) {
+            this.index = index;
+        }
+    }
+
+    private final Context mContext;
+    private final Handler mHandler;
+    private final BitrateSource mBitrateSource;
+    private final Listener mListener;
+
+    private Streamer mStreamer;
+    private Options mOptions;
+    private String mBasename;
+    private int mIndex;
+    private long mSegmentStart;
+    private File mSegmentFile;
+    private long mEstimatedSize;
+    // Segments switched away from, waiting for onRecordStateChanged to report them stopped
+    private final ArrayDeque<Segment> mPending = new ArrayDeque<>();
+    private final ArrayDeque<Segment> mCompleted = new ArrayDeque<>();
+    private long mCompletedSize;
+
+    SegmentedRecorder(Context context, Handler handler, BitrateSource bitrateSource, Listener listener) {
+        mContext = context;
+        mHandler = handler;
+        mBitrateSource = bitrateSource;
+        mListener = listener;
+    }
+
+    // Options of current or last recording
+    Options getOptions() {
+        return mOptions;
+    }
+
+    boolean isRecording() {
+        return mStreamer != null;
+    }
+
+    // Returns path (app storage) or name of the first segment, null if recording didn't start
+    String start(Streamer streamer, Options options) {
+        if (mStreamer != null || streamer == null) {
+            return null;
+        }
+        mOptions = options;
+        mBasename = stripExtension(options.fileName);
+        if (mBasename.isEmpty()) {
+            mBasename = String.format(Locale.US, "larix_%d", System.currentTimeMillis());
+        }
+        mIndex = 0;
+        // Retention applies to segments of this recording only
+        mCompleted.clear();
+        mCompletedSize = 0;
+        mStreamer = streamer;
+        final String name = openSegment(false);
+        if (name == null) {
+            mStreamer = null;
+            return null;
+        }
+        mHandler.postDelayed(mCheck, CHECK_INTERVAL);
+        return name;
+    }
+
+    void stop() {
+        if (mStreamer == null) {
+            return;
+        }
+        mHandler.removeCallbacks(mCheck);
+        mPending.add(currentSegment());
+        mStreamer.stopRecord();
+        mStreamer = null;
+        mSegmentFile = null;
+    }
+
+    // Streamer.Listener.onRecordStateChanged
+    void onRecordStateChanged(Streamer.RecordState state, Uri uri, Streamer.SaveMethod method) {
+        if (state == Streamer.RecordState.FAILED) {
+            Log.e(TAG, "Recording failed, segment " + mIndex);
+            mHandler.removeCallbacks(mCheck);
+            mStreamer = null;
+            mSegmentFile = null;
+            mPending.clear();
+            mListener.onSegment("failed", mIndex, uri, null);
+            return;
+        }
+        if (state != Streamer.RecordState.STOPPED || uri == null) {
+            return;
+        }
+        final Segment segment = mPending.poll();
+        if (segment == null) {
+            return;
+        }
+        segment.uri = uri;
+        segment.method = method;
+        if (method == Streamer.SaveMethod.FILE && uri.getPath() != null) {
+            segment.size = new File(uri.getPath()).length();
+        }
+        // Clears pending flag of MediaStore records and lets gallery see files
+        String name = MediaFileUtils.onCompleted(mContext, uri, method, null);
+        if (name == null) {
+            name = uri.getLastPathSegment();
+        }
+        mCompleted.add(segment);
+        mCompletedSize += segment.size;
+        mListener.onSegment("completed", segment.index, uri, name);
+        applyRetention();
+    }
+
+    private final Runnable mCheck = new Runnable() {
+        @Override
+        public void run() {
+            if (mStreamer == null) {
+                return;
+            }
+            mEstimatedSize += (mBitrateSource.bitrate() + AUDIO_BITRATE) / 8 * CHECK_INTERVAL / 1000;
+            final long elapsed = System.currentTimeMillis() - mSegmentStart;
+            final long size = mSegmentFile != null ? mSegmentFile.length() : mEstimatedSize;
+            if ((mOptions.segmentDuration > 0 && elapsed >= mOptions.segmentDuration)
+                    || (mOptions.segmentSize > 0 && size >= mOptions.segmentSize)) {
+                rotate();
+            }
+            mHandler.postDelayed(this, CHECK_INTERVAL);
+        }
+    };
+
+    private void rotate() {
+        final Segment finished = currentSegment();
+        if (openSegment(true) == null) {
+            // Current file goes on, next check tries again
+            Log.w(TAG, "Failed to split record at segment " + mIndex);
+            return;
+        }
+        mPending.add(finished);
+    }
+
+    private Segment currentSegment() {
+        final Segment segment = new Segment(mIndex);
+        segment.size = mSegmentFile != null ? mSegmentFile.length() : mEstimatedSize;
+        return segment;
+    }
+
+    // Returns path or name of new segment, null on failure. Index only advances on success.
+    private String openSegment(boolean split) {
+        final int index = mIndex + 1;
+        final String basename = mOptions.isSegmented()
+                ? String.format(Locale.US, "%s_%03d", mBasename, index) : mBasename;
+        String name = null;
+        File file = null;
+        if (STORAGE_SAF.equals(mOptions.storage) && mOptions.safUri != null) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && MediaFileUtils.startRecordSAF(mContext, mStreamer,
+                    mOptions.safUri, basename, Streamer.Mode.AUDIO_VIDEO, split)) {
+                name = basename;
+            }
+        } else if (STORAGE_DCIM.equals(mOptions.storage)) {
+            if (MediaFileUtils.startRecordDCIM(mContext, mStreamer,
+                    DCIM_DIRNAME, basename, Streamer.Mode.AUDIO_VIDEO, split)) {
+                name = basename;
+            }
+        } else {
+            file = MediaFileUtils.startRecordFile(mStreamer,
+                    mContext.getExternalFilesDir(Environment.DIRECTORY_PICTURES),
+                    basename, Streamer.Mode.AUDIO_VIDEO, split);
+            if (file != null) {
+                name = file.getPath();
+            }
+        }
+        if (name == null) {
+            return null;
+        }
+        mIndex = index;
+        mSegmentFile = file;
+        mSegmentStart = System.currentTimeMillis();
+        mEstimatedSize = 0;
+        return name;
+    }
+
+    // Segment being written counts toward maxSegments, so N means N files on disk at most
+    private void applyRetention() {
+        final int current = mStreamer != null ? 1 : 0;
+        while (mCompleted.size() > 0
+                && ((mOptions.maxSegments > 0 && mCompleted.size() + current > mOptions.maxSegments)
+                || (mOptions.maxTotalSize > 0 && mCompletedSize > mOptions.maxTotalSize))) {
+            final Segment oldest = mCompleted.poll();
+            mCompletedSize -= oldest.size;
+            if (MediaFileUtils.deleteRecord(mContext, oldest.uri, oldest.method)) {
+                mListener.onSegment("deleted", oldest.index, oldest.uri, null);
+            } else {
+                Log.w(TAG, "Failed to delete segment " + oldest.uri);
+            }
+        }
+    }
+
+    private static String stripExtension(String fileName) {
+        final String lower = fileName.toLowerCase(Locale.US);
+        if (lower.endsWith(".mp4") || lower.endsWith(".m4a")) {
+            return fileName.substring(0, fileName.length() - 4);
+        }
+        return fileName;
+    }
+}
@@ -0,0 +1,216 @@
+package br.com.devmagic.flutter_larix;
+
+import android.os.Handler;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.EventChannel;
+
+// Streams per-connection metrics to Dart as compact binary frames.
+// Samples are taken on scheduler thread, several samples can be batched into one frame.
+// One instance per engine, shared by views: the channel name is fixed, and the view set last samples it.
+// EventChannel needs a method codec, so frame goes as byte[] and arrives to Dart as Uint8List.
+//
+// Frame layout, little endian (see lib/src/defs/telemetry.dart):
+//   u8 version, u8 reserved, u16 sample count, then samples
+// Sample:
+//   i64 timestamp ms, i32 bitrate, f32 fps, i8 conditioner step, u8 connection count, then connections
+// Connection:
+//   i32 id, i8 state, i8 protocol, i16 RIST quality, i64 bps, i64 traffic bytes,
+//   i32 audio frames skipped, i32 video frames skipped, f32 RTT ms, i64 SRT send drops
+class StatsTelemetry implements EventChannel.StreamHandler {
+
+    static final String CHANNEL = "br.com.devmagic.flutter_larix/telemetry";
+
+    static final int VERSION = 1;
+    static final int FRAME_HEADER_SIZE = 4;
+    static final int SAMPLE_HEADER_SIZE = 18;
+    static final int CONNECTION_SIZE = 44;
+
+    static final int PROTOCOL_TCP = 0;
+    static final int PROTOCOL_SRT = 1;
+    static final int PROTOCOL_RIST = 2;
+
+    static final long DEFAULT_INTERVAL = 250; // 4 Hz
+    static final int MAX_BATCH = 64;
+
+    // Called on scheduler thread for every sample, writes it with beginSample() and addConnection()
+    interface Sampler {
+        void sample(StatsTelemetry telemetry);
+    }
+
+    private final EventChannel mChannel;
+    private final Handler mHandler;
+    private final ScheduledExecutorService mScheduler;
+    private volatile Sampler mSampler;
+
+    // Main thread only
+    private EventChannel.EventSink mSink;
+    private volatile boolean mListening;
+
+    // Scheduler thread only
+    private ByteBuffer mBuffer = newBuffer(FRAME_HEADER_SIZE + SAMPLE_HEADER_SIZE + 4 * CONNECTION_SIZE);
+    private int mSamples;
+    private int mBatchSize = 1;
+    private ScheduledFuture<?> mTask;
+
+    StatsTelemetry(BinaryMessenger messenger, Handler handler, ScheduledExecutorService scheduler) {
+        mHandler = handler;
+        mScheduler = scheduler;
+        mChannel = new EventChannel(messenger, CHANNEL);
+        mChannel.setStreamHandler(this);
+    }
+
+    void setSampler(Sampler sampler) {
+        mSampler = sampler;
+    }
+
+    // Disposed view lets go only if no newer view took over
+    void clearSampler(Sampler sampler) {
+        if (mSampler == sampler) {
+            mSampler = null;
+        }
+    }
+
+    boolean isListening() {
+        return mListening;
+    }
+
+    // Arguments are {"interval": ms, "batch": samples per frame}
+    @Override
+    public void onListen(Object arguments, EventChannel.EventSink events) {
+        long interval = DEFAULT_INTERVAL;
+        int batch = 1;
+        if (arguments instanceof Map) {
+            final Object intervalArg = ((Map<?, ?>) arguments).get("interval");
+            final Object batchArg = ((Map<?, ?>) arguments).get("batch");
+            if (intervalArg instanceof Number) {
+                interval = Math.max(50, ((Number) intervalArg).longValue());
+            }
+            if (batchArg instanceof Number) {
+                batch = Math.min(MAX_BATCH, Math.max(1, ((Number) batchArg).intValue()));
+            }
+        }
+        mSink = events;
+        mListening = true;
+        final long period = interval;
+        final int batchSize = batch;
+        mScheduler.execute(() -> {
+            cancelTask();
+            mBatchSize = batchSize;
+            resetFrame();
+            mTask = mScheduler.scheduleWithFixedDelay(mTick, period, period, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    @Override
+    public void onCancel(Object arguments) {
+        mSink = null;
+        mListening = false;
+        mScheduler.execute(this::cancelTask);
+    }
+
+    void release() {
+        mChannel.setStreamHandler(null);
+        onCancel(null);
+    }
+
+    private void cancelTask() {
+        if (mTask != null) {
+            mTask.cancel(false);
+            mTask = null;
+        }
+    }
+
+    private final Runnable mTick = new Runnable() {
+        @Override
+        public void run() {
+            final Sampler sampler = mSampler;
+            if (sampler == null) {
+                return;
+            }
+            sampler.sample(StatsTelemetry.this);
+            if (mSamples >= mBatchSize) {
+                flush();
+            }
+        }
+    };
+
+    void beginSample(long timestamp, int bitrate, double fps, int step, int connections) {
+        ensureCapacity(SAMPLE_HEADER_SIZE + connections * CONNECTION_SIZE);
+        mBuffer.putLong(timestamp);
+        mBuffer.putInt(bitrate);
+        mBuffer.putFloat((float) fps);
+        mBuffer.put((byte) step);
+        mBuffer.put((byte) connections);
+        mSamples++;
+    }
+
+    // Must follow beginSample(), exactly as many times as it was told
+    void addConnection(int id, int state, int protocol, int ristQuality, long bps, long traffic,
+                       long audioSkipped, long videoSkipped, double rtt, long sndDrop) {
+        mBuffer.putInt(id);
+        mBuffer.put((byte) state);
+        mBuffer.put((byte) protocol);
+        mBuffer.putShort((short) ristQuality);
+        mBuffer.putLong(bps);
+        mBuffer.putLong(traffic);
+        mBuffer.putInt((int) audioSkipped);
+        mBuffer.putInt((int) videoSkipped);
+        mBuffer.putFloat((float) rtt);
+        mBuffer.putLong(sndDrop);
+    }
+
+    static int protocolOf(String uri) {
+        if (uri == null) {
+            return PROTOCOL_TCP;
+        }
+        final String lower = uri.toLowerCase();
+        if (lower.startsWith("srt://")) {
+            return PROTOCOL_SRT;
+        } else if (lower.startsWith("rist://")) {
+            return PROTOCOL_RIST;
+        }
+        return PROTOCOL_TCP;
+    }
+
+    private void flush() {
+        mBuffer.putShort(2, (short) mSamples);
+        final byte[] frame = Arrays.copyOf(mBuffer.array(), mBuffer.position());
+        resetFrame();
+        mHandler.post(() -> {
+            if (mSink != null) {
+                mSink.success(frame);
+            }
+        });
+    }
+
+    private void resetFrame() {
+        mBuffer.clear();
+        mBuffer.put((byte) VERSION);
+        mBuffer.put((byte) 0);
+        mBuffer.putShort((short) 0);
+        mSamples = 0;
+    }
+
+    private void ensureCapacity(int size) {
+        if (mBuffer.remaining() >= size) {
+            return;
+        }
+        final ByteBuffer buffer = newBuffer(Math.max(mBuffer.capacity() * 2, mBuffer.position() + size));
+        mBuffer.flip();
+        buffer.put(mBuffer);
+        mBuffer = buffer;
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
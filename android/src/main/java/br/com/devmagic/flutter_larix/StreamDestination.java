@@ -0,0 +1,46 @@
+package br.com.devmagic.flutter_larix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One ingest URI fed from the shared StreamerGL encoder.
+// First destination is primary, the rest are backups receiving the same stream.
+class StreamDestination {
+    final String uri;
+    // Streamer connection id, 0 when not connected
+    volatile int connectionId;
+    // Pending reconnect attempt, null when none is scheduled
+    Runnable reconnectTask;
+    // Attempts made since connection was last seen sending data
+    int reconnectAttempt;
+    // Current connection got past handshake, reset on disconnect
+    boolean reachedServer;
+    // Current connection got to RECORD, reset on disconnect
+    boolean publishing;
+    // Why last connection ended, shapes next reconnect; null while connected
+    ConnectionFailure failure;
+
+    StreamDestination(String uri) {
+        this.uri = uri;
+    }
+
+    boolean isActive() {
+        return connectionId > 0;
+    }
+
+    // Accepts list of URIs from Dart side, falls back to url from creation params
+    static List<StreamDestination> fromUris(List<?> uris, String fallback) {
+        final List<StreamDestination> destinations = new ArrayList<>();
+        if (uris != null) {
+            for (Object uri : uris) {
+                if (uri != null && !uri.toString().isEmpty()) {
+                    destinations.add(new StreamDestination(uri.toString()));
+                }
+            }
+        }
+        if (destinations.isEmpty() && fallback != null) {
+            destinations.add(new StreamDestination(fallback));
+        }
+        return destinations;
+    }
+}
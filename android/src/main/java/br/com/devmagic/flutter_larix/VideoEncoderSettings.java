@@ -10,10 +10,14 @@ import android.os.Build;
 import com.wmspanel.libstream.Streamer;
 import com.wmspanel.libstream.VideoConfig;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
+import br.com.devmagic.flutter_larix.libcommon.EncoderDatabase;
 import br.com.devmagic.flutter_larix.libcommon.MediaCodecUtils;
 
 public class VideoEncoderSettings {
@@ -158,6 +162,8 @@ public class VideoEncoderSettings {
                 return "H.264";
             case MediaFormat.MIMETYPE_VIDEO_HEVC:
                 return "HEVC";
+            case MediaFormat.MIMETYPE_VIDEO_AV1:
+                return "AV1";
             default:
                 return mimeType;
         }
@@ -195,13 +201,11 @@ public class VideoEncoderSettings {
 
         try {
             final int profile = MediaCodecInfo.CodecProfileLevel.AVCLevel1;
-            final MediaCodecInfo info = MediaCodecUtils.selectCodec(mimeType);
-            if (info != null) {
-                final MediaCodecInfo.CodecCapabilities capabilities = info.getCapabilitiesForType(mimeType);
-                for (MediaCodecInfo.CodecProfileLevel profileLevel : capabilities.profileLevels) {
-                    if (profileLevel.profile == profile) {
-                        return profileLevel;
-                    }
+            final EncoderDatabase.Encoder encoder = EncoderDatabase.get().encoder(mimeType);
+            if (encoder != null) {
+                final MediaCodecInfo.CodecProfileLevel profileLevel = encoder.profileLevel(profile);
+                if (profileLevel != null) {
+                    return profileLevel;
                 }
                 throw new NumberFormatException();
             }
@@ -236,11 +240,9 @@ public class VideoEncoderSettings {
 
         try {
             final int bitrateMode = MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_CQ;//Integer.parseInt(value);
-            final MediaCodecInfo info = MediaCodecUtils.selectCodec(mimeType);
-            if (info != null) {
-                final MediaCodecInfo.CodecCapabilities capabilities = info.getCapabilitiesForType(mimeType);
-                final MediaCodecInfo.EncoderCapabilities encoderCapabilities = capabilities.getEncoderCapabilities();
-                if (encoderCapabilities.isBitrateModeSupported(bitrateMode)) {
+            final EncoderDatabase.Encoder encoder = EncoderDatabase.get().encoder(mimeType);
+            if (encoder != null) {
+                if (encoder.isBitrateModeSupported(bitrateMode)) {
                     return bitrateMode;
                 }
                 throw new NumberFormatException();
@@ -251,6 +253,47 @@ public class VideoEncoderSettings {
         return -1;
     }
 
+    // Codec names used on Dart side, null for unknown ones
+    public static String mimeTypeForName(final String name) {
+        if (name == null) {
+            return null;
+        }
+        switch (name.toLowerCase(Locale.US)) {
+            case "avc":
+            case "h264":
+                return MediaFormat.MIMETYPE_VIDEO_AVC;
+            case "hevc":
+            case "h265":
+                return MediaFormat.MIMETYPE_VIDEO_HEVC;
+            case "av1":
+                return MediaFormat.MIMETYPE_VIDEO_AV1;
+            default:
+                return null;
+        }
+    }
+
+    // First codec from preference list which has hardware encoder and didn't fail before.
+    // Software HEVC/AV1 encoders can't keep up with camera, so AVC is used when nothing qualifies.
+    public static String selectMimeType(final List<?> preferences, final Collection<String> failed) {
+        if (preferences == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return MediaFormat.MIMETYPE_VIDEO_AVC;
+        }
+        for (Object name : preferences) {
+            final String type = mimeTypeForName(name != null ? name.toString() : null);
+            if (type == null || (failed != null && failed.contains(type))) {
+                continue;
+            }
+            if (MediaFormat.MIMETYPE_VIDEO_AVC.equals(type)) {
+                return type;
+            }
+            final EncoderDatabase.Encoder encoder = EncoderDatabase.get().encoder(type);
+            if (encoder != null && encoder.hardware) {
+                return type;
+            }
+        }
+        return MediaFormat.MIMETYPE_VIDEO_AVC;
+    }
+
     public static String mimeType(final Context context) {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
             return MediaFormat.MIMETYPE_VIDEO_AVC;
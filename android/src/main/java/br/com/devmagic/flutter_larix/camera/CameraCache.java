@@ -0,0 +1,289 @@
+package br.com.devmagic.flutter_larix.camera;
+
+import android.content.Context;
+import android.hardware.camera2.CameraManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.wmspanel.libstream.Streamer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Process-wide camera capabilities, CameraRegistry is queried once instead of on every initCamera.
+// Snapshot in cache dir lets next process skip CameraManager queries as long as device build is the same.
+// Cache is dropped when CameraManager reports camera which is not known yet or external camera going away.
+public final class CameraCache {
+    private static final String TAG = "CameraCache";
+    private static final String SNAPSHOT_FILE = "larix_cameras.json";
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static Boolean sAllowCamera2;
+    private static List<CameraInfo> sCamera2List;
+    private static List<CameraInfo> sCamera1List;
+    private static boolean sSnapshotLoaded;
+    private static CameraManager.AvailabilityCallback sAvailabilityCallback;
+
+    private CameraCache() {
+    }
+
+    public static synchronized boolean allowCamera2Support(final Context context) {
+        load(context);
+        if (sAllowCamera2 == null) {
+            sAllowCamera2 = CameraRegistry.allowCamera2Support(context);
+            save(context);
+        }
+        return sAllowCamera2;
+    }
+
+    // Returned list and its items are shared, callers must not modify them
+    @NonNull
+    public static synchronized List<CameraInfo> getCameraList(final Context context, final boolean camera2) {
+        load(context);
+        List<CameraInfo> list = camera2 ? sCamera2List : sCamera1List;
+        if (list == null) {
+            final long start = System.currentTimeMillis();
+            list = Collections.unmodifiableList(CameraRegistry.getCameraList(context, camera2));
+            Log.d(TAG, "Camera list built in " + (System.currentTimeMillis() - start) + "ms");
+            if (camera2) {
+                sCamera2List = list;
+            } else {
+                sCamera1List = list;
+            }
+            save(context);
+        }
+        return list;
+    }
+
+    public static synchronized void invalidate(final Context context) {
+        sAllowCamera2 = null;
+        sCamera2List = null;
+        sCamera1List = null;
+        final File file = snapshotFile(context);
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Failed to delete " + file);
+        }
+    }
+
+    private static void load(final Context context) {
+        registerAvailabilityCallback(context);
+        if (sSnapshotLoaded) {
+            return;
+        }
+        sSnapshotLoaded = true;
+        final File file = snapshotFile(context);
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            final JSONObject snapshot = new JSONObject(readFile(file));
+            if (snapshot.optInt("version", 0) != SNAPSHOT_VERSION
+                    || !fingerprint().equals(snapshot.optString("fingerprint"))) {
+                Log.d(TAG, "Camera snapshot is stale, ignoring");
+                return;
+            }
+            if (snapshot.has("allowCamera2")) {
+                sAllowCamera2 = snapshot.getBoolean("allowCamera2");
+            }
+            sCamera2List = readList(snapshot.optJSONArray("camera2"));
+            sCamera1List = readList(snapshot.optJSONArray("camera1"));
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Failed to read camera snapshot: " + e.getMessage());
+            sAllowCamera2 = null;
+            sCamera2List = null;
+            sCamera1List = null;
+        }
+    }
+
+    private static void save(final Context context) {
+        try {
+            final JSONObject snapshot = new JSONObject();
+            snapshot.put("version", SNAPSHOT_VERSION);
+            snapshot.put("fingerprint", fingerprint());
+            if (sAllowCamera2 != null) {
+                snapshot.put("allowCamera2", sAllowCamera2.booleanValue());
+            }
+            if (sCamera2List != null) {
+                snapshot.put("camera2", writeList(sCamera2List));
+            }
+            if (sCamera1List != null) {
+                snapshot.put("camera1", writeList(sCamera1List));
+            }
+            writeFile(snapshotFile(context), snapshot.toString());
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Failed to write camera snapshot: " + e.getMessage());
+        }
+    }
+
+    // Availability callback also fires when any app opens or closes a camera,
+    // those events don't change capabilities and must not drop the cache
+    private static void registerAvailabilityCallback(final Context context) {
+        if (sAvailabilityCallback != null || Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return;
+        }
+        final CameraManager manager = (CameraManager) context.getSystemService(Context.CAMERA_SERVICE);
+        if (manager == null) {
+            return;
+        }
+        final Context appContext = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+        sAvailabilityCallback = new CameraManager.AvailabilityCallback() {
+            @Override
+            public void onCameraAvailable(@NonNull String cameraId) {
+                synchronized (CameraCache.class) {
+                    if (sCamera2List != null && find(cameraId, sCamera2List) == null) {
+                        Log.d(TAG, "New camera " + cameraId + ", invalidating");
+                        invalidate(appContext);
+                    }
+                }
+            }
+
+            @Override
+            public void onCameraUnavailable(@NonNull String cameraId) {
+                synchronized (CameraCache.class) {
+                    final CameraInfo info = sCamera2List != null ? find(cameraId, sCamera2List) : null;
+                    if (info != null && info.lensFacing == CameraInfo.LENS_FACING_EXTERNAL) {
+                        Log.d(TAG, "External camera " + cameraId + " is gone, invalidating");
+                        invalidate(appContext);
+                    }
+                }
+            }
+        };
+        manager.registerAvailabilityCallback(sAvailabilityCallback, new Handler(Looper.getMainLooper()));
+    }
+
+    private static CameraInfo find(final String cameraId, final List<CameraInfo> list) {
+        for (CameraInfo info : list) {
+            if (info.cameraId.equals(cameraId)) {
+                return info;
+            }
+            final CameraInfo physical = find(cameraId, info.physicalCameras);
+            if (physical != null) {
+                return physical;
+            }
+        }
+        return null;
+    }
+
+    private static String fingerprint() {
+        return Build.FINGERPRINT + "/" + Build.VERSION.SDK_INT;
+    }
+
+    private static File snapshotFile(final Context context) {
+        return new File(context.getCacheDir(), SNAPSHOT_FILE);
+    }
+
+    private static JSONArray writeList(final List<CameraInfo> list) throws JSONException {
+        final JSONArray array = new JSONArray();
+        for (CameraInfo info : list) {
+            array.put(writeInfo(info));
+        }
+        return array;
+    }
+
+    private static List<CameraInfo> readList(final JSONArray array) throws JSONException {
+        if (array == null) {
+            return null;
+        }
+        final List<CameraInfo> list = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            list.add(readInfo(array.getJSONObject(i)));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    private static JSONObject writeInfo(final CameraInfo info) throws JSONException {
+        final JSONObject json = new JSONObject();
+        json.put("cameraId", info.cameraId);
+        json.put("lensFacing", info.lensFacing);
+        final JSONArray sizes = new JSONArray();
+        for (Streamer.Size size : info.recordSizes) {
+            sizes.put(size.width).put(size.height);
+        }
+        json.put("recordSizes", sizes);
+        final JSONArray ranges = new JSONArray();
+        for (Streamer.FpsRange range : info.fpsRanges) {
+            ranges.put(range.fpsMin).put(range.fpsMax);
+        }
+        json.put("fpsRanges", ranges);
+        json.put("minExposure", info.minExposure);
+        json.put("maxExposure", info.maxExposure);
+        json.put("exposureStep", (double) info.exposureStep);
+        json.put("fov", (double) info.fov);
+        json.put("isZoomSupported", info.isZoomSupported);
+        json.put("maxZoom", (double) info.maxZoom);
+        json.put("isTorchSupported", info.isTorchSupported);
+        json.put("minimumFocusDistance", (double) info.minimumFocusDistance);
+        json.put("physicalCameras", writeList(info.physicalCameras));
+        return json;
+    }
+
+    private static CameraInfo readInfo(final JSONObject json) throws JSONException {
+        final CameraInfo info = new CameraInfo();
+        info.cameraId = json.getString("cameraId");
+        info.lensFacing = json.getInt("lensFacing");
+        final JSONArray sizes = json.getJSONArray("recordSizes");
+        for (int i = 0; i + 1 < sizes.length(); i += 2) {
+            info.recordSizes.add(new Streamer.Size(sizes.getInt(i), sizes.getInt(i + 1)));
+        }
+        final JSONArray ranges = json.getJSONArray("fpsRanges");
+        for (int i = 0; i + 1 < ranges.length(); i += 2) {
+            info.fpsRanges.add(new Streamer.FpsRange(ranges.getInt(i), ranges.getInt(i + 1)));
+        }
+        info.minExposure = json.getInt("minExposure");
+        info.maxExposure = json.getInt("maxExposure");
+        info.exposureStep = (float) json.getDouble("exposureStep");
+        info.fov = (float) json.getDouble("fov");
+        info.isZoomSupported = json.getBoolean("isZoomSupported");
+        info.maxZoom = (float) json.getDouble("maxZoom");
+        info.isTorchSupported = json.getBoolean("isTorchSupported");
+        info.minimumFocusDistance = (float) json.getDouble("minimumFocusDistance");
+        final List<CameraInfo> physicalCameras = readList(json.optJSONArray("physicalCameras"));
+        if (physicalCameras != null) {
+            info.physicalCameras.addAll(physicalCameras);
+        }
+        return info;
+    }
+
+    private static String readFile(final File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            final byte[] data = new byte[(int) file.length()];
+            int read = 0;
+            while (read < data.length) {
+                final int count = in.read(data, read, data.length - read);
+                if (count < 0) {
+                    break;
+                }
+                read += count;
+            }
+            return new String(data, 0, read, UTF_8);
+        }
+    }
+
+    // Written to temporary file first, so crash in the middle never leaves broken snapshot
+    private static void writeFile(final File file, final String content) throws IOException {
+        final File tmp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(content.getBytes(UTF_8));
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Failed to rename " + tmp);
+        }
+    }
+}
@@ -1,12 +1,37 @@
 package br.com.devmagic.flutter_larix.conditioner;
 
-public class BitrateHistory {
-        long ts;
-        long bitrate;
+public class BitrateHistory extends HistoryWindow {
+    private final long[] bitrate;
 
-        BitrateHistory(long ts, long bitrate) {
-            this.ts = ts;
-            this.bitrate = bitrate;
+    BitrateHistory(int capacity, long retention) {
+        super(capacity, retention);
+        bitrate = new long[capacity()];
+    }
+
+    void add(long ts, long bitrate) {
+        final int slot = append(ts);
+        this.bitrate[slot] = bitrate;
+    }
+
+    long bitrate(int i) {
+        return bitrate[slot(i)];
+    }
+
+    long lastTs() {
+        return ts(size() - 1);
+    }
+
+    long lastBitrate() {
+        return bitrate(size() - 1);
+    }
+
+    // Copy with another capacity, newest entries are kept if they don't fit
+    BitrateHistory resized(int capacity) {
+        final BitrateHistory copy = new BitrateHistory(capacity, retention());
+        for (int i = 0; i < size(); i++) {
+            copy.add(ts(i), bitrate(i));
         }
-}
+        return copy;
+    }
 
+}
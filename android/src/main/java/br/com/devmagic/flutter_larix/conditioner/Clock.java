@@ -0,0 +1,8 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+// Time source of conditioners, benchmarks and simulations replace it with a virtual one
+interface Clock {
+    Clock SYSTEM = System::currentTimeMillis;
+
+    long now();
+}
@@ -0,0 +1,64 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+// Fixed-capacity ring of timestamps, oldest entry first.
+// Subclasses keep their values in parallel primitive arrays indexed by the slot returned from append().
+// Entries older than the retention period are evicted, except the newest of them:
+// it is kept as a baseline, so interval queries still have a starting point.
+abstract class HistoryWindow {
+    private final long[] ts;
+    private final long retention;
+    private int head;
+    private int size;
+
+    HistoryWindow(int capacity, long retention) {
+        this.ts = new long[Math.max(2, capacity)];
+        this.retention = retention;
+    }
+
+    static int capacityFor(long retention, long interval) {
+        // One sample per interval plus the baseline and the entry being appended
+        return (int) (retention / Math.max(1, interval)) + 2;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    int capacity() {
+        return ts.length;
+    }
+
+    long retention() {
+        return retention;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long ts(int i) {
+        return ts[slot(i)];
+    }
+
+    final int slot(int i) {
+        return (head + i) % ts.length;
+    }
+
+    final int append(long time) {
+        if (size == ts.length) {
+            head = (head + 1) % ts.length;
+            size--;
+        }
+        final int slot = slot(size);
+        ts[slot] = time;
+        size++;
+        final long cutoff = time - retention;
+        while (size > 1 && ts[slot(1)] < cutoff) {
+            head = (head + 1) % ts.length;
+            size--;
+        }
+        return slot;
+    }
+
+}
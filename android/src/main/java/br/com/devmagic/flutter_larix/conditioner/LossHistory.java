@@ -1,14 +1,44 @@
 package br.com.devmagic.flutter_larix.conditioner;
 
-class LossHistory {
-    long ts;
-    long audio;
-    long video;
+class LossHistory extends HistoryWindow {
+    private final long[] audio;
+    private final long[] video;
 
-    LossHistory(long ts, long audio, long video) {
-        this.ts = ts;
-        this.audio = audio;
-        this.video = video;
+    LossHistory(int capacity, long retention) {
+        super(capacity, retention);
+        audio = new long[capacity()];
+        video = new long[capacity()];
     }
 
-}
\ No newline at end of file
+    void add(long ts, long audio, long video) {
+        final int slot = append(ts);
+        this.audio[slot] = audio;
+        this.video[slot] = video;
+    }
+
+    long audio(int i) {
+        return audio[slot(i)];
+    }
+
+    long video(int i) {
+        return video[slot(i)];
+    }
+
+    long lastAudio() {
+        return audio(size() - 1);
+    }
+
+    long lastVideo() {
+        return video(size() - 1);
+    }
+
+    // Copy with another capacity, newest entries are kept if they don't fit
+    LossHistory resized(int capacity) {
+        final LossHistory copy = new LossHistory(capacity, retention());
+        for (int i = 0; i < size(); i++) {
+            copy.add(ts(i), audio(i), video(i));
+        }
+        return copy;
+    }
+
+}
@@ -0,0 +1,185 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.wmspanel.libstream.Streamer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import br.com.devmagic.flutter_larix.camera.CameraInfo;
+
+// Size, fps and bitrate rungs from camera record sizes and encoder capabilities, best first.
+// Rungs keep aspect ratio of the top size and are at least MIN_PIXEL_STEP apart,
+// lower rungs get bitrate scaled by pixel rate so bits per pixel stay sane on small frames.
+public final class QualityLadder {
+
+    // Encoder side of the ladder, see MediaCodecUtils for the EncoderDatabase based one
+    public interface Limits {
+        boolean isSupported(int width, int height, double fps);
+
+        int clampBitrate(int bitrate);
+    }
+
+    public static final class Rung {
+        public final Streamer.Size size;
+        public final int fps;
+        public final int bitrate;
+
+        Rung(Streamer.Size size, int fps, int bitrate) {
+            this.size = size;
+            this.fps = fps;
+            this.bitrate = bitrate;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%dx%d@%d %dkbps", size.width, size.height, fps, bitrate / 1000);
+        }
+    }
+
+    // Encoding cost grows slower than pixel count, this is the usual exponent for h264/hevc
+    static final double BITRATE_EXPONENT = 0.75;
+    // Neighbour rungs differ at least this much in pixel count
+    static final double MIN_PIXEL_STEP = 1.5;
+    static final int MIN_HEIGHT = 240;
+    static final int MAX_RUNGS = 5;
+
+    // Used when camera doesn't report record sizes
+    private static final Streamer.Size[] STANDARD_SIZES = {
+            new Streamer.Size(1920, 1080),
+            new Streamer.Size(1280, 720),
+            new Streamer.Size(960, 540),
+            new Streamer.Size(854, 480),
+            new Streamer.Size(640, 360),
+            new Streamer.Size(426, 240)
+    };
+
+    private final List<Rung> mRungs;
+
+    private QualityLadder(List<Rung> rungs) {
+        mRungs = Collections.unmodifiableList(rungs);
+    }
+
+    // Top rung is the largest size not above maxSize, with maxFps and topBitrate
+    @NonNull
+    public static QualityLadder build(@Nullable CameraInfo camera,
+                                      @NonNull Streamer.Size maxSize,
+                                      int maxFps,
+                                      int topBitrate,
+                                      @Nullable Limits limits) {
+        final List<Streamer.Size> candidates = new ArrayList<>();
+        if (camera != null && !camera.recordSizes.isEmpty()) {
+            candidates.addAll(camera.recordSizes);
+        } else {
+            Collections.addAll(candidates, STANDARD_SIZES);
+        }
+        // Largest first
+        Collections.sort(candidates, (a, b) -> Long.compare(pixels(b), pixels(a)));
+
+        final List<Rung> rungs = new ArrayList<>();
+        double topRatio = 0;
+        double topRate = 0;
+        long lastPixels = 0;
+        for (Streamer.Size size : candidates) {
+            if (rungs.size() >= MAX_RUNGS) {
+                break;
+            }
+            if (size.width > maxSize.width || size.height > maxSize.height || size.height < MIN_HEIGHT) {
+                continue;
+            }
+            if (topRatio > 0 && Math.abs(ratio(size) / topRatio - 1.0) > 0.01) {
+                continue;
+            }
+            if (lastPixels > 0 && lastPixels < pixels(size) * MIN_PIXEL_STEP) {
+                continue;
+            }
+            final int fps = supportedFps(camera, size, maxFps, limits);
+            if (fps <= 0) {
+                continue;
+            }
+            int bitrate = topBitrate;
+            final double rate = (double) pixels(size) * fps;
+            if (rungs.isEmpty()) {
+                topRatio = ratio(size);
+                topRate = rate;
+            } else {
+                bitrate = (int) Math.round(topBitrate * Math.pow(rate / topRate, BITRATE_EXPONENT));
+            }
+            if (limits != null) {
+                bitrate = limits.clampBitrate(bitrate);
+            }
+            rungs.add(new Rung(size, fps, bitrate));
+            lastPixels = pixels(size);
+        }
+        if (rungs.isEmpty()) {
+            // Nothing matched, keep requested settings as single rung
+            rungs.add(new Rung(maxSize, maxFps, topBitrate));
+        }
+        return new QualityLadder(rungs);
+    }
+
+    // Highest camera fps not above maxFps which encoder accepts for this size, 0 if none
+    private static int supportedFps(CameraInfo camera, Streamer.Size size, int maxFps, Limits limits) {
+        final List<Integer> rates = new ArrayList<>();
+        rates.add(maxFps);
+        if (camera != null) {
+            for (Streamer.FpsRange range : camera.fpsRanges) {
+                if (range.fpsMax < maxFps) {
+                    rates.add(range.fpsMax);
+                }
+            }
+        }
+        Collections.sort(rates, Collections.reverseOrder());
+        for (int fps : rates) {
+            if (fps > 0 && (limits == null || limits.isSupported(size.width, size.height, fps))) {
+                return fps;
+            }
+        }
+        return 0;
+    }
+
+    private static long pixels(Streamer.Size size) {
+        return (long) size.width * size.height;
+    }
+
+    private static double ratio(Streamer.Size size) {
+        return (double) size.width / size.height;
+    }
+
+    public int size() {
+        return mRungs.size();
+    }
+
+    public Rung get(int index) {
+        return mRungs.get(index);
+    }
+
+    public Rung top() {
+        return mRungs.get(0);
+    }
+
+    public List<Rung> rungs() {
+        return mRungs;
+    }
+
+    // Index of the best rung whose bitrate fits, the lowest rung if none does
+    public int rungFor(int bitrate) {
+        for (int i = 0; i < mRungs.size(); i++) {
+            if (mRungs.get(i).bitrate <= bitrate) {
+                return i;
+            }
+        }
+        return mRungs.size() - 1;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return mRungs.toString();
+    }
+}
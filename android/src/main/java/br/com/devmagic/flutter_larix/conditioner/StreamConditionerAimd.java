@@ -0,0 +1,85 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import android.content.Context;
+
+import com.wmspanel.libstream.Streamer;
+
+// Continuous additive-increase/multiplicative-decrease controller.
+// Reacts every 500ms instead of ladder's 2s and moves bitrate in small steps,
+// so it follows cellular uplinks with frequently changing capacity more closely.
+class StreamConditionerAimd extends StreamConditionerBase {
+
+    private static final double START_FRAC = 0.5;
+    private static final double MIN_FRAC = 0.2;
+    private static final double INCREASE_FRAC = 0.02; // Additive increase per check, as part of full bitrate
+    private static final double DECREASE_FACTOR = 0.7;
+    private static final long NORMALIZATION_DELAY = 1_000; //Ignore lost frames during this time after bitrate change
+    private static final long INCREASE_HOLD = 4_000; //Don't increase during this time after decrease
+    private static final long LOST_ESTIMATE_INTERVAL = 2_000; //Period for lost frames count
+    private static final long LOST_BANDWITH_TOLERANCE_FRAC = 300_000;
+
+    private long mLastDecreaseTs;
+
+    @Override
+    protected long checkInterval() {
+        return 500;
+    }
+
+    @Override
+    protected long checkDelay() {
+        return 1000;
+    }
+
+    @Override
+    protected long historyRetention() {
+        return LOST_ESTIMATE_INTERVAL;
+    }
+
+    StreamConditionerAimd(Context context) {
+        super(context);
+    }
+
+    @Override
+    public void start(Streamer streamer, int bitrate) {
+        mFullBitrate = bitrate;
+        mLastDecreaseTs = 0;
+        int startBitrate = (int) Math.round(bitrate * START_FRAC);
+        super.start(streamer, startBitrate);
+        changeBitrateQuiet(startBitrate);
+    }
+
+    @Override
+    protected int resumeBitrate(int bitrate) {
+        return (int) Math.max(bitrate, Math.round(mFullBitrate * MIN_FRAC));
+    }
+
+    @Override
+    protected boolean isAtFloor() {
+        return mCurrentBitrate <= Math.round(mFullBitrate * MIN_FRAC);
+    }
+
+    @Override
+    protected void check(long audioLost, long videoLost) {
+        long curTime = now();
+        long dtChange = curTime - mBitrateHistory.lastTs();
+        if (mLossHistory.lastAudio() != audioLost || mLossHistory.lastVideo() != videoLost) {
+            mLossHistory.add(curTime, audioLost, videoLost);
+            if (dtChange < NORMALIZATION_DELAY) {
+                return;
+            }
+            long minBitrate = Math.round(mFullBitrate * MIN_FRAC);
+            if (mCurrentBitrate <= minBitrate) {
+                return;
+            }
+            long estimatePeriod = Math.max(mBitrateHistory.lastTs() + NORMALIZATION_DELAY, curTime - LOST_ESTIMATE_INTERVAL);
+            long lostTolerance = mCurrentBitrate / LOST_BANDWITH_TOLERANCE_FRAC;
+            if (countLostForInterval(estimatePeriod) >= lostTolerance) {
+                changeBitrate(Math.max(minBitrate, Math.round(mCurrentBitrate * DECREASE_FACTOR)));
+                mLastDecreaseTs = curTime;
+            }
+        } else if (mCurrentBitrate < mFullBitrate && curTime - mLastDecreaseTs >= INCREASE_HOLD) {
+            changeBitrate(Math.min(mFullBitrate, mCurrentBitrate + Math.round(mFullBitrate * INCREASE_FRAC)));
+        }
+    }
+
+}
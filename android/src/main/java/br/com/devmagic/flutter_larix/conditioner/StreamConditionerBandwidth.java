@@ -0,0 +1,77 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import android.content.Context;
+
+// Model-based controller for SRT, similar to BBR: bitrate follows estimated bottleneck bandwidth
+// and steps down as soon as queueing shows up in RTT or sender buffer, before SRT starts to drop packets.
+// Connections without SRT statistics fall back to loss-driven AIMD.
+class StreamConditionerBandwidth extends StreamConditionerAimd {
+
+    private static final double PACING_GAIN = 0.85; // Target bitrate as part of bottleneck bandwidth
+    private static final double MIN_FRAC = 0.2;
+    private static final double PROBE_FRAC = 0.05; // Max increase per check, as part of full bitrate
+    private static final double CHANGE_THRESHOLD_FRAC = 0.02; // Ignore smaller changes to avoid encoder reconfiguration
+    private static final double RTT_INFLATION = 1.5;
+    private static final double RTT_SLACK_MS = 20.0;
+    private static final double SND_BUF_LIMIT = 0.5; // Sender buffer as part of TSBPD delay
+    private static final double QUEUE_DRAIN_FACTOR = 0.85;
+    private static final double LOSS_FACTOR = 0.7;
+    private static final long NORMALIZATION_DELAY = 1_000; //Ignore queueing signals during this time after bitrate change
+
+    StreamConditionerBandwidth(Context context) {
+        super(context);
+    }
+
+    @Override
+    protected void check(long audioLost, long videoLost) {
+        double bottleneckBps = Double.MAX_VALUE;
+        boolean queueing = false;
+        boolean dropping = false;
+        for (int id : mConnectionId) {
+            final StreamStats stats = mStreamStats.get(id);
+            if (stats == null || !stats.hasEstimate()) {
+                continue;
+            }
+            bottleneckBps = Math.min(bottleneckBps, stats.getMaxRealBps() * 8); // Bytes -> bits
+            final double minRtt = stats.getMinRttMs();
+            if (stats.getRttMs() > minRtt * RTT_INFLATION + RTT_SLACK_MS) {
+                queueing = true;
+            }
+            final int tsbPdDelay = stats.getTsbPdDelayMs();
+            if (tsbPdDelay > 0 && stats.getSndBufMs() > tsbPdDelay * SND_BUF_LIMIT) {
+                queueing = true;
+            }
+        }
+        if (bottleneckBps == Double.MAX_VALUE) {
+            super.check(audioLost, videoLost);
+            return;
+        }
+
+        long curTime = now();
+        if (mLossHistory.lastAudio() != audioLost || mLossHistory.lastVideo() != videoLost) {
+            mLossHistory.add(curTime, audioLost, videoLost);
+            dropping = true;
+        }
+
+        double target = bottleneckBps * PACING_GAIN;
+        if (curTime - mBitrateHistory.lastTs() >= NORMALIZATION_DELAY) {
+            if (dropping) {
+                target = Math.min(target, mCurrentBitrate * LOSS_FACTOR);
+            } else if (queueing) {
+                target = Math.min(target, mCurrentBitrate * QUEUE_DRAIN_FACTOR);
+            }
+        } else {
+            // Previous change has not settled yet, only allow to go down
+            target = Math.min(target, mCurrentBitrate);
+        }
+        if (target > mCurrentBitrate) {
+            target = Math.min(target, mCurrentBitrate + mFullBitrate * PROBE_FRAC);
+        }
+        long newBitrate = Math.round(Math.max(mFullBitrate * MIN_FRAC, Math.min(mFullBitrate, target)));
+        if (Math.abs(newBitrate - mCurrentBitrate) >= mFullBitrate * CHANGE_THRESHOLD_FRAC
+                || (newBitrate == mFullBitrate && mCurrentBitrate != mFullBitrate)) {
+            changeBitrate(newBitrate);
+        }
+    }
+
+}
@@ -3,7 +3,6 @@ package br.com.devmagic.flutter_larix.conditioner;
 import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
 
 import androidx.annotation.NonNull;
 
@@ -11,29 +10,38 @@ import com.wmspanel.libstream.RistStats;
 import com.wmspanel.libstream.SrtStats;
 import com.wmspanel.libstream.Streamer;
 import com.wmspanel.libstream.TcpStats;
+import com.wmspanel.libstream.VideoConfig;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import br.com.devmagic.flutter_larix.camera.CameraInfo;
 
+// Statistics polling and check() run on the shared scheduler thread, all conditioner state is confined to it.
+// Public methods may be called from any thread, they are forwarded to the scheduler.
+// Streamer settings are changed on the main thread. stop() and release() don't wait for the scheduler,
+// streamer is released behind a scheduler task so that a check in progress is done with it.
 public abstract class StreamConditionerBase {
 
     protected static final String TAG = "StreamConditioner";
 
-    private final Handler mHandler;
+    private ScheduledExecutorService mScheduler;
+    private Executor mMainExecutor;
+    private Clock mClock = Clock.SYSTEM;
 
     private int mSettingsBitrate;
-    protected int mCurrentBitrate;
+    protected volatile int mCurrentBitrate;
     protected int mFullBitrate;
-    protected final List<LossHistory> mLossHistory = new ArrayList<>();
-    protected final List<BitrateHistory> mBitrateHistory = new ArrayList<>();
+    // Sized for one entry per check, replaced by bigger ones when check interval gets shorter
+    protected LossHistory mLossHistory;
+    protected BitrateHistory mBitrateHistory;
     protected final Map<Integer, StreamStats> mStreamStats = new HashMap<>();
     protected double mCurrentFps;
     protected Streamer.FpsRange mCurrentRange = new Streamer.FpsRange(30, 30);
@@ -44,7 +52,47 @@ public abstract class StreamConditionerBase {
 
     private Streamer mStreamer;
     protected final Set<Integer> mConnectionId = new HashSet<>();
-    private Timer mCheckTimer;
+    private ScheduledFuture<?> mCheckTask;
+    private long mCheckIntervalOverride;
+
+    // Resolution switching, off until setQualityLadder()
+    public interface ResolutionListener {
+        // Called on main thread with encoder config for the new rung. Streamer takes it only while
+        // video capture is stopped, so listener releases connections, calls applyVideoConfig()
+        // and reopens them with resumeAt() once capture is back.
+        void onResolutionChanged(QualityLadder.Rung rung, VideoConfig config, int bitrate);
+    }
+
+    static final long DOWNSCALE_HOLD = 6_000; // Sustained loss at the lowest bitrate before going to lower rung
+    static final long UPSCALE_HOLD = 30_000; // Loss free at full bitrate of rung before going to upper one
+    static final long MAX_UPSCALE_HOLD = UPSCALE_HOLD * 8;
+    static final long FLAP_WINDOW = 60_000; // Going down this soon after going up doubles UPSCALE_HOLD
+    static final long RESOLUTION_NORMALIZATION_DELAY = 2_000; // Ignore loss right after encoder reconfiguration
+    static final double FLOOR_FRAC = 0.25;
+    static final double UPSCALE_FRAC = 0.9;
+
+    private QualityLadder mQualityLadder;
+    private VideoConfig mVideoConfig;
+    private ResolutionListener mResolutionListener;
+    private int mStartRung;
+    private int mRung;
+    private double mLadderScale = 1.0;
+    private long mUpscaleHold = UPSCALE_HOLD;
+    private long mLastLost = -1;
+    private long mLastLossTs;
+    private long mFloorSince;
+    private int mFloorLossCount;
+    private long mFullSince;
+    private long mResolutionChangeTs;
+    private long mUpscaleTs;
+
+    // Encoding governor limits, see setGovernorLimits()
+    private int mGovernorMaxFps;
+    private double mGovernorBitrateFrac = 1.0;
+    private int mGovernorRungDrop;
+    private volatile boolean mRunning;
+    // Set on main thread by release(), streamer calls posted before it are dropped
+    private volatile boolean mReleased;
 
     protected final boolean TEST_MODE = false;
     protected boolean mSimulateLoss = false; // Used by test mode to simulate packet loss
@@ -57,47 +105,174 @@ public abstract class StreamConditionerBase {
         return 1000;
     }
 
-    abstract void check(long audioLost, long videoLost);
+    // Longest period the strategy looks back into loss and bitrate history
+    protected long historyRetention() {
+        return 10_000;
+    }
+
+    protected abstract void check(long audioLost, long videoLost);
 
-    StreamConditionerBase(Context context) {
+    protected StreamConditionerBase(Context context) {
         mContext = context;
-        mHandler = new Handler(Looper.getMainLooper());
+        // Overrides of checkInterval() and historyRetention() must return constants,
+        // they are called before subclass fields are initialized
+        final int capacity = HistoryWindow.capacityFor(historyRetention(), checkInterval());
+        mLossHistory = new LossHistory(capacity, historyRetention());
+        mBitrateHistory = new BitrateHistory(capacity, historyRetention());
+    }
+
+    public static StreamConditionerBase newInstance(Context context,
+                                                    int bitrate,
+                                                    @NonNull CameraInfo info,
+                                                    @NonNull ScheduledExecutorService scheduler) {
+        return newInstance(context, StreamConditionerRegistry.LADDER_ASCEND, bitrate, info, scheduler);
     }
 
+    // Strategy name is resolved by StreamConditionerRegistry.resolve()
     public static StreamConditionerBase newInstance(Context context,
+                                                    String strategy,
                                                     int bitrate,
-                                                    @NonNull CameraInfo info) {
+                                                    @NonNull CameraInfo info,
+                                                    @NonNull ScheduledExecutorService scheduler) {
 
-        StreamConditionerBase conditioner = conditioner = new StreamConditionerLadderAscend(context);
+        StreamConditionerBase conditioner = StreamConditionerRegistry.create(strategy, context);
 
         if (conditioner != null) {
             conditioner.mSettingsBitrate = bitrate;
             conditioner.setCameraInfo(info);
+            conditioner.setExecutors(scheduler, new Handler(Looper.getMainLooper())::post);
         }
         return conditioner;
     }
 
+    void setExecutors(ScheduledExecutorService scheduler, Executor mainExecutor) {
+        mScheduler = scheduler;
+        mMainExecutor = mainExecutor;
+    }
+
+    void setClock(Clock clock) {
+        mClock = clock;
+    }
+
+    protected final long now() {
+        return mClock.now();
+    }
+
+    // Overrides strategy's check interval, 0 restores default
+    public void setCheckInterval(long intervalMs) {
+        mScheduler.execute(() -> {
+            mCheckIntervalOverride = Math.max(0, intervalMs);
+            final int capacity = HistoryWindow.capacityFor(historyRetention(), effectiveCheckInterval());
+            if (capacity > mLossHistory.capacity()) {
+                mLossHistory = mLossHistory.resized(capacity);
+                mBitrateHistory = mBitrateHistory.resized(capacity);
+            }
+            if (mCheckTask != null) {
+                runTask();
+            }
+        });
+    }
+
+    protected final long effectiveCheckInterval() {
+        return mCheckIntervalOverride > 0 ? mCheckIntervalOverride : checkInterval();
+    }
+
     public void start(Streamer streamer) {
-        start(streamer, mSettingsBitrate);
+        mScheduler.execute(() -> start(streamer, mSettingsBitrate));
     }
 
     protected void start(Streamer streamer, int bitrate) {
+        mBitrateHistory.clear();
+        if (mQualityLadder != null) {
+            // Rung bitrates are relative to the one conditioner was started with
+            mRung = mStartRung;
+            mLadderScale = mFullBitrate > 0 ? mFullBitrate / (double) mQualityLadder.get(mStartRung).bitrate : 1.0;
+            mUpscaleHold = UPSCALE_HOLD;
+            mUpscaleTs = 0;
+        }
+        reset(streamer, bitrate);
+    }
+
+    // Restarts after reconnect at given bitrate instead of strategy's starting point.
+    // Bitrate history is kept, so recovery pacing still sees drops made before the outage.
+    public void resumeAt(Streamer streamer, int bitrate) {
+        mScheduler.execute(() -> {
+            if (mFullBitrate <= 0 || bitrate <= 0) {
+                start(streamer, mSettingsBitrate);
+                return;
+            }
+            final int resumeBitrate = resumeBitrate(Math.min(bitrate, mFullBitrate));
+            reset(streamer, resumeBitrate);
+            changeBitrateQuiet(resumeBitrate);
+        });
+    }
+
+    // Restarts on a new network link at given bitrate. Unlike resumeAt(), loss and bitrate history
+    // of the old link is dropped, it says nothing about the new one.
+    public void restartAt(Streamer streamer, int bitrate) {
+        mScheduler.execute(() -> {
+            mBitrateHistory.clear();
+            if (mFullBitrate <= 0 || bitrate <= 0) {
+                start(streamer, mSettingsBitrate);
+                return;
+            }
+            final int startBitrate = resumeBitrate(Math.min(bitrate, mFullBitrate));
+            reset(streamer, startBitrate);
+            changeBitrateQuiet(startBitrate);
+        });
+    }
+
+    // Lets strategy align its state with bitrate passed to resumeAt(), returns bitrate to use
+    protected int resumeBitrate(int bitrate) {
+        return bitrate;
+    }
+
+    private void reset(Streamer streamer, int bitrate) {
         mStreamer = streamer;
-        final long curTime = System.currentTimeMillis();
+        final long curTime = now();
         mLossHistory.clear();
-        mLossHistory.add(new LossHistory(curTime, 0, 0));
-        mBitrateHistory.clear();
-        mBitrateHistory.add(new BitrateHistory(curTime, bitrate));
+        mLossHistory.add(curTime, 0, 0);
+        mBitrateHistory.add(curTime, bitrate);
         mCurrentBitrate = bitrate;
         mCurrentFps = 30.0;
+        resetResolutionState(curTime);
+        mRunning = true;
         runTask();
+        applyGovernorLimits();
     }
 
+    // Restores encoder settings conditioner started with, restoring calls are posted to main thread
     public void stop() {
-        cancelTask();
-        if (mFullBitrate > 0) {
-            updateFps(mFullBitrate);
+        mScheduler.execute(() -> {
+            cancelTask();
+            mRunning = false;
+            if (mQualityLadder != null && mRung != mStartRung) {
+                mFullBitrate = rungBitrate(mStartRung);
+                reconfigure(mStartRung, mFullBitrate);
+            }
+            if (mFullBitrate > 0) {
+                updateFps(mFullBitrate);
+            }
+            detach();
+        });
+    }
+
+    // Stops for good before streamer is released: settings are left as they are and streamer calls
+    // still queued on main thread are dropped
+    public void release() {
+        mReleased = true;
+        try {
+            mScheduler.execute(() -> {
+                cancelTask();
+                mRunning = false;
+                detach();
+            });
+        } catch (RejectedExecutionException e) {
+            // Scheduler is shut down, nothing polls the streamer anymore
         }
+    }
+
+    private void detach() {
         mCurrentBitrate = 0;
         mStreamer = null;
         mConnectionId.clear();
@@ -105,45 +280,104 @@ public abstract class StreamConditionerBase {
     }
 
     public void pause() {
-        cancelTask();
+        mScheduler.execute(this::cancelTask);
     }
 
     public void resume() {
-        if (mCurrentBitrate == 0) {
-            return;
-        }
-        mCurrentBitrate = mFullBitrate;
+        mScheduler.execute(() -> {
+            if (mCurrentBitrate == 0) {
+                return;
+            }
+            mCurrentBitrate = mFullBitrate;
 
             mMaxFps = 30.0;
             mCurrentRange = new Streamer.FpsRange(30, 30);
 
-        mCurrentFps = mMaxFps;
-        runTask();
-        mStreamer.changeBitRate(mFullBitrate);
+            mCurrentFps = mMaxFps;
+            runTask();
+            changeBitrateQuiet(mFullBitrate);
+        });
     }
 
     public void addConnection(int connectionId) {
-        final int capacity = 5_000 / (int) checkDelay();
-        mStreamStats.put(connectionId, new StreamStats(capacity));
-        mConnectionId.add(connectionId);
+        mScheduler.execute(() -> {
+            final int capacity = 5_000 / (int) checkDelay();
+            mStreamStats.put(connectionId, new StreamStats(capacity));
+            mConnectionId.add(connectionId);
+        });
     }
 
     public void removeConnection(int connectionId) {
-        mConnectionId.remove(connectionId);
-        mStreamStats.remove(connectionId);
+        mScheduler.execute(() -> {
+            mConnectionId.remove(connectionId);
+            mStreamStats.remove(connectionId);
+        });
+    }
+
+    // Lets conditioner switch encoder between ladder rungs, config is the one encoder runs with now.
+    // Must be called before start(), null ladder or listener turns switching off.
+    public void setQualityLadder(QualityLadder ladder, VideoConfig config, ResolutionListener listener) {
+        mScheduler.execute(() -> {
+            if (ladder == null || ladder.size() < 2 || config == null || listener == null) {
+                mQualityLadder = null;
+                return;
+            }
+            mQualityLadder = ladder;
+            mVideoConfig = config;
+            mResolutionListener = listener;
+            mStartRung = 0;
+            for (int i = 0; i < ladder.size(); i++) {
+                if (ladder.get(i).size.equals(config.videoSize)) {
+                    mStartRung = i;
+                    break;
+                }
+            }
+            mRung = mStartRung;
+        });
+    }
+
+    // Current ladder rung, -1 when resolution switching is off. Scheduler thread only.
+    public int getRung() {
+        return mQualityLadder != null ? mRung : -1;
     }
 
     public void setCameraInfo(final CameraInfo info) {
+        mCameraInfo = info;
+    }
 
-        if (mCameraInfo != null) {
-            mCameraInfo = info;
-        }
+    // Caps set by device state rather than network: fps (0 for no cap), part of full bitrate
+    // and number of ladder rungs below the starting one encoder must stay at.
+    // Limits are kept across start()/stop() and applied at once while conditioner runs.
+    public void setGovernorLimits(int maxFps, double bitrateFrac, int rungDrop) {
+        mScheduler.execute(() -> {
+            mGovernorMaxFps = Math.max(0, maxFps);
+            mGovernorBitrateFrac = Math.max(0.1, Math.min(1.0, bitrateFrac));
+            mGovernorRungDrop = Math.max(0, rungDrop);
+            if (mStreamer != null) {
+                applyGovernorLimits();
+            }
+        });
+    }
+
+    // Conditioner was started and not stopped since, streamer settings are its business then
+    public boolean isRunning() {
+        return mRunning;
     }
 
     public int getBitrate() {
         return mCurrentBitrate;
     }
 
+    // Must be called on scheduler thread, like check()
+    public double getFps() {
+        return mCurrentFps;
+    }
+
+    // Position on strategy's bitrate ladder, -1 when strategy has none. Scheduler thread only.
+    public int getStep() {
+        return -1;
+    }
+
     private final Runnable mCheckNetwork = new Runnable() {
         @Override
         public void run() {
@@ -169,7 +403,7 @@ public abstract class StreamConditionerBase {
                 final SrtStats srtStats = mStreamer.getSrtStats(id);
                 if (srtStats != null) {
                     videoLost += srtStats.pktSndDrop;
-                    stats.put(srtStats, checkInterval());
+                    stats.put(srtStats, effectiveCheckInterval());
                 }
 
                 final RistStats ristStats = mStreamer.getRistStats(id);
@@ -178,51 +412,46 @@ public abstract class StreamConditionerBase {
                 }
             }
             if (TEST_MODE) {
-                LossHistory prevLost = ListUtils.getLast(mLossHistory);
                 if (mSimulateLoss) {
-                    audioLost = prevLost.audio + 3;
-                    videoLost = prevLost.video + 3;
+                    audioLost = mLossHistory.lastAudio() + 3;
+                    videoLost = mLossHistory.lastVideo() + 3;
                 } else {
-                    audioLost = prevLost.audio;
-                    videoLost = prevLost.video;
+                    audioLost = mLossHistory.lastAudio();
+                    videoLost = mLossHistory.lastVideo();
                 }
             }
 
             check(audioLost, videoLost);
+            if (mQualityLadder != null) {
+                updateResolution(audioLost + videoLost);
+            }
         }
     };
 
     private void runTask() {
-        if (checkDelay() == 0 || checkInterval() == 0) {
+        if (checkDelay() == 0 || effectiveCheckInterval() == 0) {
             return;
         }
 
         cancelTask();
-        mCheckTimer = new Timer();
-        mCheckTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                mHandler.post(mCheckNetwork);
-            }
-        }, checkDelay(), checkInterval());
+        mCheckTask = mScheduler.scheduleWithFixedDelay(mCheckNetwork,
+                checkDelay(), effectiveCheckInterval(), TimeUnit.MILLISECONDS);
     }
 
     private void cancelTask() {
-        if (mCheckTimer != null) {
-            mCheckTimer.cancel();
-            mCheckTimer = null;
+        if (mCheckTask != null) {
+            mCheckTask.cancel(false);
+            mCheckTask = null;
         }
-
-        mHandler.removeCallbacksAndMessages(null);
     }
 
     protected long countLostForInterval(long interval) {
         long lost = 0;
-        LossHistory last = ListUtils.getLast(mLossHistory);
-        for (int i = mLossHistory.size() - 1; i >= 0; i--) {
-            if (mLossHistory.get(i).ts < interval) {
-                LossHistory h = mLossHistory.get(i);
-                lost = (last.video - h.video) + (last.audio - h.audio);
+        final int last = mLossHistory.size() - 1;
+        for (int i = last; i >= 0; i--) {
+            if (mLossHistory.ts(i) < interval) {
+                lost = (mLossHistory.video(last) - mLossHistory.video(i))
+                        + (mLossHistory.audio(last) - mLossHistory.audio(i));
                 break;
             }
         }
@@ -230,13 +459,149 @@ public abstract class StreamConditionerBase {
     }
 
     protected void changeBitrate(long newBitrate) {
-        mBitrateHistory.add(new BitrateHistory(System.currentTimeMillis(), newBitrate));
-        mStreamer.changeBitRate((int) newBitrate);
+        mBitrateHistory.add(now(), newBitrate);
+        changeBitrateQuiet(newBitrate);
         mCurrentBitrate = (int) newBitrate;
     }
 
     protected void changeBitrateQuiet(long newBitrate) {
-        mStreamer.changeBitRate((int) newBitrate);
+        final Streamer streamer = mStreamer;
+        if (streamer != null) {
+            // Strategy keeps its own view of bitrate, only encoder sees the governor cap
+            final int bitrate = (int) Math.min(newBitrate, governorBitrateCap());
+            postToMain(() -> streamer.changeBitRate(bitrate));
+        }
+    }
+
+    private void postToMain(Runnable action) {
+        mMainExecutor.execute(() -> {
+            if (!mReleased) {
+                action.run();
+            }
+        });
+    }
+
+    private long governorBitrateCap() {
+        return mFullBitrate > 0 && mGovernorBitrateFrac < 1.0
+                ? Math.round(mFullBitrate * mGovernorBitrateFrac) : Long.MAX_VALUE;
+    }
+
+    // Lowest rung governor allows, rung index grows as quality goes down
+    private int governorMinRung() {
+        return Math.min(mStartRung + mGovernorRungDrop, mQualityLadder.size() - 1);
+    }
+
+    private void applyGovernorLimits() {
+        if (mQualityLadder != null && mRung < governorMinRung()) {
+            switchRung(governorMinRung());
+        } else if (mCurrentBitrate > 0) {
+            changeBitrateQuiet(mCurrentBitrate);
+        }
+        if (mFullBitrate > 0) {
+            updateFps(mCurrentBitrate > 0 ? mCurrentBitrate : mFullBitrate);
+        }
+    }
+
+    private double maxFps() {
+        return mGovernorMaxFps > 0 ? Math.min(mMaxFps, mGovernorMaxFps) : mMaxFps;
+    }
+
+    // Strategy is at the bottom of its bitrate range for current rung
+    protected boolean isAtFloor() {
+        return mCurrentBitrate <= mFullBitrate * FLOOR_FRAC;
+    }
+
+    private void resetResolutionState(long curTime) {
+        mLastLost = -1;
+        mLastLossTs = 0;
+        mFloorSince = 0;
+        mFloorLossCount = 0;
+        mFullSince = 0;
+        mResolutionChangeTs = curTime;
+    }
+
+    // Steps down a rung after sustained loss at the lowest bitrate, steps up after long loss free run at full bitrate.
+    // Upscale hold is much longer than downscale one and doubles when switching flaps.
+    private void updateResolution(long lost) {
+        final long curTime = now();
+        if (mLastLost >= 0 && lost != mLastLost) {
+            mLastLossTs = curTime;
+        }
+        mLastLost = lost;
+        if (curTime - mResolutionChangeTs < RESOLUTION_NORMALIZATION_DELAY) {
+            return;
+        }
+
+        if (isAtFloor()) {
+            mFullSince = 0;
+            if (mFloorSince == 0) {
+                mFloorSince = curTime;
+                mFloorLossCount = 0;
+            } else if (mLastLossTs == curTime) {
+                mFloorLossCount++;
+            }
+            if (mRung < mQualityLadder.size() - 1 && mFloorLossCount >= 2
+                    && curTime - mFloorSince >= DOWNSCALE_HOLD) {
+                if (mUpscaleTs > 0 && curTime - mUpscaleTs < FLAP_WINDOW) {
+                    mUpscaleHold = Math.min(MAX_UPSCALE_HOLD, mUpscaleHold * 2);
+                }
+                switchRung(mRung + 1);
+            }
+            return;
+        }
+        mFloorSince = 0;
+
+        if (mCurrentBitrate >= mFullBitrate * UPSCALE_FRAC && mLastLossTs < curTime) {
+            if (mFullSince == 0 || mLastLossTs >= mFullSince) {
+                mFullSince = curTime;
+            } else if (mRung > governorMinRung() && curTime - mFullSince >= mUpscaleHold) {
+                mUpscaleTs = curTime;
+                switchRung(mRung - 1);
+            }
+        } else {
+            mFullSince = 0;
+        }
+    }
+
+    private int rungBitrate(int rung) {
+        return (int) Math.round(mQualityLadder.get(rung).bitrate * mLadderScale);
+    }
+
+    // Strategy continues on new rung from bitrate it had, aligned to its own steps
+    private void switchRung(int rung) {
+        final long curTime = now();
+        mFullBitrate = rungBitrate(rung);
+        final int bitrate = resumeBitrate(Math.min(mCurrentBitrate, mFullBitrate));
+        mBitrateHistory.add(curTime, bitrate);
+        mCurrentBitrate = bitrate;
+        reconfigure(rung, bitrate);
+        resetResolutionState(curTime);
+    }
+
+    private void reconfigure(int rung, int bitrate) {
+        mRung = rung;
+        final QualityLadder.Rung target = mQualityLadder.get(rung);
+        final VideoConfig config = new VideoConfig();
+        config.type = mVideoConfig.type;
+        config.keyFrameInterval = mVideoConfig.keyFrameInterval;
+        config.profileLevel = mVideoConfig.profileLevel;
+        config.bitRateMode = mVideoConfig.bitRateMode;
+        config.discardCameraTimestamp = mVideoConfig.discardCameraTimestamp;
+        config.videoSize = target.size;
+        config.fps = mGovernorMaxFps > 0 ? Math.min(target.fps, mGovernorMaxFps) : target.fps;
+        config.bitRate = (int) Math.min(bitrate, governorBitrateCap());
+        final ResolutionListener listener = mResolutionListener;
+        if (mStreamer != null) {
+            postToMain(() -> listener.onResolutionChanged(target, config, bitrate));
+        }
+    }
+
+    // Restarts video capture with new config, libstream throws IllegalStateException
+    // on changeVideoConfig() while capturing. Main thread, connections released beforehand.
+    public static void applyVideoConfig(Streamer streamer, VideoConfig config) {
+        streamer.stopVideoCapture();
+        streamer.changeVideoConfig(config);
+        streamer.startVideoCapture();
     }
 
     protected void updateFps(long newBitrate) {
@@ -244,9 +609,10 @@ public abstract class StreamConditionerBase {
             return;
         }
         double bitrateRel = newBitrate * 1.0 / mFullBitrate;
-        double relFps = mMaxFps;
+        final double maxFps = maxFps();
+        double relFps = maxFps;
         if (bitrateRel < 0.5) {
-            relFps = Math.max(15.0, Math.floor(mMaxFps * bitrateRel * 2.0 / 5.0) * 5.0);
+            relFps = Math.min(maxFps, Math.max(15.0, Math.floor(maxFps * bitrateRel * 2.0 / 5.0) * 5.0));
         }
         if (Math.abs(relFps - mCurrentFps) < 1.0) {
             return;
@@ -259,7 +625,11 @@ public abstract class StreamConditionerBase {
         if (newRange.fpsMax == mCurrentRange.fpsMax && newRange.fpsMin == mCurrentRange.fpsMin) {
             return;
         }
-        mStreamer.changeFpsRange(newRange);
+        final Streamer streamer = mStreamer;
+        final Streamer.FpsRange range = newRange;
+        if (streamer != null) {
+            postToMain(() -> streamer.changeFpsRange(range));
+        }
         mCurrentRange = newRange;
     }
 
@@ -25,6 +25,11 @@ class StreamConditionerLadderAscend extends StreamConditionerBase {
         return 2000;
     }
 
+    @Override
+    protected long historyRetention() {
+        return Math.max(LOST_ESTIMATE_INTERVAL, RECOVERY_ATTEMPT_INTERVALS[RECOVERY_ATTEMPT_INTERVALS.length - 1]);
+    }
+
     StreamConditionerLadderAscend(Context context) {
         super(context);
     }
@@ -41,19 +46,40 @@ class StreamConditionerLadderAscend extends StreamConditionerBase {
         }
     }
 
+    @Override
+    public int getStep() {
+        return mStep;
+    }
+
+    @Override
+    protected boolean isAtFloor() {
+        return mStep == 0;
+    }
+
+    // Picks highest step not above requested bitrate
+    @Override
+    protected int resumeBitrate(int bitrate) {
+        mStep = 0;
+        while (mStep < BANDWITH_STEPS.length - 1
+                && Math.round(mFullBitrate * BANDWITH_STEPS[mStep + 1]) <= bitrate) {
+            mStep++;
+        }
+        return (int) Math.round(mFullBitrate * BANDWITH_STEPS[mStep]);
+    }
+
     @Override
     protected void check(long audioLost, long videoLost) {
-        long curTime = System.currentTimeMillis();
-        LossHistory prevLost = ListUtils.getLast(mLossHistory);
-        BitrateHistory prevBitrate = ListUtils.getLast(mBitrateHistory);
-        if (prevLost.audio != audioLost || prevLost.video != videoLost) {
-            long dtChange = curTime - prevBitrate.ts;
-            mLossHistory.add(new LossHistory(curTime, audioLost, videoLost));
+        long curTime = now();
+        long prevBitrateTs = mBitrateHistory.lastTs();
+        long prevBitrate = mBitrateHistory.lastBitrate();
+        if (mLossHistory.lastAudio() != audioLost || mLossHistory.lastVideo() != videoLost) {
+            long dtChange = curTime - prevBitrateTs;
+            mLossHistory.add(curTime, audioLost, videoLost);
             if (mStep == 0 || dtChange < NORMALIZATION_DELAY) {
                 return;
             }
-            long estimatePeriod = Math.max(prevBitrate.ts + NORMALIZATION_DELAY, curTime - LOST_ESTIMATE_INTERVAL);
-            long lostTolerance = prevBitrate.bitrate / LOST_BANDWITH_TOLERANCE_FRAC;
+            long estimatePeriod = Math.max(prevBitrateTs + NORMALIZATION_DELAY, curTime - LOST_ESTIMATE_INTERVAL);
+            long lostTolerance = prevBitrate / LOST_BANDWITH_TOLERANCE_FRAC;
             if (countLostForInterval(estimatePeriod) >= lostTolerance) {
                 long newBitrate = Math.round(mFullBitrate * BANDWITH_STEPS[--mStep]);
 
@@ -63,7 +89,7 @@ class StreamConditionerLadderAscend extends StreamConditionerBase {
                 }
 
             }
-        } else if (prevBitrate.bitrate < mFullBitrate && canTryToRecover()) {
+        } else if (prevBitrate < mFullBitrate && canTryToRecover()) {
             long newBitrate = Math.round(mFullBitrate * BANDWITH_STEPS[++mStep]);
 
             changeBitrate(newBitrate);
@@ -73,28 +99,27 @@ class StreamConditionerLadderAscend extends StreamConditionerBase {
         }
     }
 
-    private boolean canTryToRecover() {
-        long curTime = System.currentTimeMillis();
+    boolean canTryToRecover() {
+        long curTime = now();
         int len = mBitrateHistory.size();
         int numDrops = 0;
         int numIntervals = RECOVERY_ATTEMPT_INTERVALS.length;
         long prevDropTime = 0;
         for (int i = len - 1; i > 0; i--) {
-            BitrateHistory last = mBitrateHistory.get(i);
-            BitrateHistory prev = mBitrateHistory.get(i - 1);
-            long dt = curTime - last.ts;
-            if (last.bitrate < prev.bitrate) {
-                if (prevDropTime != 0 && prevDropTime - last.ts < DROP_MERGE_INTERVAL) {
+            long lastTs = mBitrateHistory.ts(i);
+            long dt = curTime - lastTs;
+            if (mBitrateHistory.bitrate(i) < mBitrateHistory.bitrate(i - 1)) {
+                if (prevDropTime != 0 && prevDropTime - lastTs < DROP_MERGE_INTERVAL) {
                     continue;
                 }
                 if (dt <= RECOVERY_ATTEMPT_INTERVALS[numDrops]) {
                     return false;
                 }
                 numDrops++;
-                prevDropTime = last.ts;
+                prevDropTime = lastTs;
             }
 
-            if (numDrops == numIntervals || curTime - last.ts >= RECOVERY_ATTEMPT_INTERVALS[numIntervals - 1]) {
+            if (numDrops == numIntervals || curTime - lastTs >= RECOVERY_ATTEMPT_INTERVALS[numIntervals - 1]) {
                 break;
             }
         }
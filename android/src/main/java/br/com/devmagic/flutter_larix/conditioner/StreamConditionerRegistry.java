@@ -0,0 +1,93 @@
+package br.com.devmagic.flutter_larix.conditioner;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import br.com.devmagic.flutter_larix.libcommon.UriResult;
+
+// Bitrate control strategies by name, as passed from Flutter to startAutomaticBitRate.
+// Apps may register own strategies (e.g. from MainActivity) without changing the plugin.
+public final class StreamConditionerRegistry {
+
+    public interface Factory {
+        StreamConditionerBase create(Context context);
+    }
+
+    public static final String LADDER_ASCEND = "ladder";
+    public static final String AIMD = "aimd";
+    public static final String BANDWIDTH = "bandwidth";
+    // Pick strategy by connection protocol, see forScheme()
+    public static final String AUTO = "auto";
+
+    private static final Map<String, Factory> sFactories = new HashMap<>();
+
+    static {
+        sFactories.put(LADDER_ASCEND, StreamConditionerLadderAscend::new);
+        sFactories.put(AIMD, StreamConditionerAimd::new);
+        sFactories.put(BANDWIDTH, StreamConditionerBandwidth::new);
+    }
+
+    private StreamConditionerRegistry() {
+    }
+
+    public static synchronized void register(@NonNull String name, @NonNull Factory factory) {
+        if (AUTO.equals(name)) {
+            throw new IllegalArgumentException("\"" + AUTO + "\" is reserved");
+        }
+        sFactories.put(name, factory);
+    }
+
+    public static synchronized Set<String> names() {
+        return Collections.unmodifiableSet(new TreeSet<>(sFactories.keySet()));
+    }
+
+    // Returns registered strategy name; unknown names fall back to ladder
+    @NonNull
+    public static synchronized String resolve(@Nullable String name, @Nullable String uri) {
+        if (name == null || name.isEmpty()) {
+            return LADDER_ASCEND;
+        }
+        if (AUTO.equals(name)) {
+            return forScheme(scheme(uri));
+        }
+        return sFactories.containsKey(name) ? name : LADDER_ASCEND;
+    }
+
+    // RTMP/RTSP run over TCP and report skipped frames only, ladder with long recovery suits them best;
+    // SRT reports link bandwidth and RTT, so bitrate can follow the estimate;
+    // RIST reports loss continuously, so finer grained control pays off
+    @NonNull
+    public static String forScheme(@Nullable String scheme) {
+        if (UriResult.isSrt(scheme)) {
+            return BANDWIDTH;
+        }
+        if (UriResult.isRist(scheme)) {
+            return AIMD;
+        }
+        return LADDER_ASCEND;
+    }
+
+    @Nullable
+    static synchronized StreamConditionerBase create(@NonNull String name, Context context) {
+        final Factory factory = sFactories.get(name);
+        return factory == null ? null : factory.create(context);
+    }
+
+    @Nullable
+    private static String scheme(@Nullable String uri) {
+        if (uri == null) {
+            return null;
+        }
+        final int end = uri.indexOf("://");
+        return end > 0 ? uri.substring(0, end) : null;
+    }
+
+}
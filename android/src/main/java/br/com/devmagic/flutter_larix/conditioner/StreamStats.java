@@ -2,20 +2,71 @@ package br.com.devmagic.flutter_larix.conditioner;
 
 import com.wmspanel.libstream.SrtStats;
 
+// Please note: despite the names, requiredBps and realBps are in bytes per second
 public class StreamStats {
+    private static final int RTT_WINDOW_SCALE = 4; // Min RTT is tracked over longer window than bandwidth
+
     private final TrafficHistory avgToSend;
+    private final TrafficHistory bandwidth; // Link capacity estimates, bytes per second
+    private final TrafficHistory rtt; // Round trip time samples, microseconds
 
     private double requiredBps;
     private double realBps;
+    private double rttMs;
+    private int sndBufMs;
+    private int tsbPdDelayMs;
+    private long sndDrop;
 
     StreamStats(int capacity) {
         avgToSend = new TrafficHistory(capacity);
+        bandwidth = new TrafficHistory(capacity);
+        rtt = new TrafficHistory(capacity * RTT_WINDOW_SCALE);
     }
 
     void put(SrtStats stats, long checkInterval) {
         avgToSend.put(stats.byteSentUnique - stats.pktSentUnique * 44); // Subtract UDT/SRT header size
         realBps = stats.mbpsBandwidth * 125_000;
         requiredBps = avgToSend.avg() / (checkInterval / 1000.0);
+        if (realBps > 0) {
+            bandwidth.add((long) realBps);
+        }
+        if (stats.msRTT > 0) {
+            rtt.add((long) (stats.msRTT * 1000));
+        }
+        rttMs = stats.msRTT;
+        sndBufMs = stats.msSndBuf;
+        tsbPdDelayMs = stats.msSndTsbPdDelay;
+        sndDrop = stats.pktSndDrop;
+    }
+
+    boolean hasEstimate() {
+        return bandwidth.size() > 0 && rtt.size() > 0;
+    }
+
+    // Bottleneck bandwidth, max of recent link capacity estimates
+    double getMaxRealBps() {
+        return bandwidth.max();
+    }
+
+    double getRttMs() {
+        return rttMs;
+    }
+
+    double getMinRttMs() {
+        return rtt.min() / 1000.0;
+    }
+
+    // Unacknowledged data in sender buffer; packets are dropped when it exceeds TSBPD delay
+    int getSndBufMs() {
+        return sndBufMs;
+    }
+
+    int getTsbPdDelayMs() {
+        return tsbPdDelayMs;
+    }
+
+    long getSndDrop() {
+        return sndDrop;
     }
 
     double getRequiredBps() {
@@ -1,40 +1,92 @@
 package br.com.devmagic.flutter_larix.conditioner;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
+// Sliding window of samples backed by a primitive ring buffer.
+// Running sum keeps put() and avg() O(1); min/max/percentile scan the window (capacity is small).
 public class TrafficHistory {
-        List<Long> values;
+        final long[] values;
+        final long[] sorted; // Scratch buffer for percentile(), avoids allocation per query
         int pos;
-        int capacity;
+        int count;
+        long sum;
         long prev;
 
         TrafficHistory(int capacity) {
-            this.capacity = capacity;
-            values = new ArrayList<>(capacity);
+            values = new long[Math.max(1, capacity)];
+            sorted = new long[values.length];
             prev = 0;
         }
 
+        // Accepts cumulative counter value, stores delta from previous one
         void put(long value) {
             final long delta = value > prev ? value - prev : 0;
-            if (values.size() < capacity) {
-                values.add(delta);
+            add(delta);
+            prev = value;
+        }
+
+        // Accepts sample as is
+        void add(long sample) {
+            if (count < values.length) {
+                count++;
             } else {
-                values.set(pos, delta);
+                sum -= values[pos];
             }
-            pos = (pos + 1) % capacity;
-            prev = value;
+            values[pos] = sample;
+            sum += sample;
+            pos = (pos + 1) % values.length;
+        }
+
+        void clear() {
+            pos = 0;
+            count = 0;
+            sum = 0;
+            prev = 0;
+        }
+
+        int size() {
+            return count;
         }
 
         double avg() {
-            if (values.isEmpty()) {
+            if (count == 0) {
                 return 0.0;
             }
-            Long sum = 0L;
-            for (Long value : values) {
-                sum += value;
+            return (double) sum / count;
+        }
+
+        long min() {
+            if (count == 0) {
+                return 0;
+            }
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                min = Math.min(min, values[i]);
+            }
+            return min;
+        }
+
+        long max() {
+            if (count == 0) {
+                return 0;
+            }
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                max = Math.max(max, values[i]);
+            }
+            return max;
+        }
+
+        // Nearest-rank percentile, fraction is in 0.0..1.0 range
+        long percentile(double fraction) {
+            if (count == 0) {
+                return 0;
             }
-            return sum.doubleValue() / values.size();
+            System.arraycopy(values, 0, sorted, 0, count);
+            Arrays.sort(sorted, 0, count);
+            final double clamped = Math.min(1.0, Math.max(0.0, fraction));
+            final int rank = (int) Math.ceil(clamped * count);
+            return sorted[Math.max(0, rank - 1)];
         }
 
 }
@@ -14,6 +14,8 @@ public final class ConnectionStatistics {
     private long videoSkipped;
     private long audioSkipped;
     private long pktSndDrop;
+    private double rtt = -1; // ms, SRT and RIST only
+    private int ristQuality = -1;
     private boolean dataLossIncreased;
 
     public long getBandwidth() {
@@ -28,6 +30,28 @@ public final class ConnectionStatistics {
         return prevBytes;
     }
 
+    public long getAudioFramesSkipped() {
+        return audioSkipped;
+    }
+
+    public long getVideoFramesSkipped() {
+        return videoSkipped;
+    }
+
+    public long getSndDrop() {
+        return pktSndDrop;
+    }
+
+    // Round trip time in milliseconds, -1 when transport doesn't report it
+    public double getRtt() {
+        return rtt;
+    }
+
+    // RIST link quality in percent, -1 for other transports
+    public int getRistQuality() {
+        return ristQuality;
+    }
+
     public boolean isDataLossIncreasing() {
         return dataLossIncreased;
     }
@@ -60,12 +84,15 @@ public final class ConnectionStatistics {
             }
         } else if (srtStats != null) {
             bytesSent = srtStats.byteSentUnique - srtStats.pktSentUnique * 44; // Subtract UDT/SRT header size
+            rtt = srtStats.msRTT;
             if (pktSndDrop != srtStats.pktSndDrop) {
                 pktSndDrop = srtStats.pktSndDrop;
                 dataLossIncreased = true;
             }
         } else if (ristStats != null) {
             bytesSent = ristStats.sent * 1316;
+            rtt = ristStats.rtt;
+            ristQuality = (int) Math.round(ristStats.quality);
             if (ristStats.sent > 100 && ristStats.quality < 90) {
                 dataLossIncreased = true;
             }
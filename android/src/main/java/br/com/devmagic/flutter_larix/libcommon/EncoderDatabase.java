@@ -0,0 +1,150 @@
+package br.com.devmagic.flutter_larix.libcommon;
+
+import android.annotation.TargetApi;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+import android.util.Range;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Encoder capabilities indexed by mime type.
+// MediaCodecList is walked once per process, then every query is a map lookup.
+// Encoders keep MediaCodecList order, so first one is the same codec selectCodec used to return.
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public final class EncoderDatabase {
+
+    public static final class Encoder {
+        public final MediaCodecInfo info;
+        public final String name;
+        public final String mimeType;
+        public final boolean hardware;
+        // Video only, null for audio encoders
+        public final MediaCodecInfo.VideoCapabilities videoCapabilities;
+        public final Range<Integer> widths;
+        public final Range<Integer> heights;
+        public final Range<Integer> frameRates;
+        public final Range<Integer> bitrates;
+        public final List<MediaCodecInfo.CodecProfileLevel> profileLevels;
+
+        // First entry for every profile, as it comes from codec
+        private final Map<Integer, MediaCodecInfo.CodecProfileLevel> mProfiles = new HashMap<>();
+        // Bit per supported EncoderCapabilities.BITRATE_MODE_*
+        private final int mBitrateModes;
+
+        Encoder(final MediaCodecInfo info, final String mimeType) {
+            final MediaCodecInfo.CodecCapabilities capabilities = info.getCapabilitiesForType(mimeType);
+            this.info = info;
+            this.name = info.getName();
+            this.mimeType = mimeType;
+            this.hardware = isHardware(info);
+            this.videoCapabilities = capabilities.getVideoCapabilities();
+            if (videoCapabilities != null) {
+                widths = videoCapabilities.getSupportedWidths();
+                heights = videoCapabilities.getSupportedHeights();
+                frameRates = videoCapabilities.getSupportedFrameRates();
+                bitrates = videoCapabilities.getBitrateRange();
+            } else {
+                widths = null;
+                heights = null;
+                frameRates = null;
+                bitrates = null;
+            }
+            final List<MediaCodecInfo.CodecProfileLevel> levels = new ArrayList<>();
+            if (capabilities.profileLevels != null) {
+                for (MediaCodecInfo.CodecProfileLevel profileLevel : capabilities.profileLevels) {
+                    levels.add(profileLevel);
+                    if (!mProfiles.containsKey(profileLevel.profile)) {
+                        mProfiles.put(profileLevel.profile, profileLevel);
+                    }
+                }
+            }
+            profileLevels = Collections.unmodifiableList(levels);
+            int modes = 0;
+            final MediaCodecInfo.EncoderCapabilities encoderCapabilities = capabilities.getEncoderCapabilities();
+            if (encoderCapabilities != null) {
+                for (int mode = MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_CQ;
+                     mode <= MediaCodecInfo.EncoderCapabilities.BITRATE_MODE_CBR_FD; mode++) {
+                    if (encoderCapabilities.isBitrateModeSupported(mode)) {
+                        modes |= 1 << mode;
+                    }
+                }
+            }
+            mBitrateModes = modes;
+        }
+
+        public boolean isSizeSupported(final int width, final int height) {
+            return videoCapabilities != null && videoCapabilities.isSizeSupported(width, height);
+        }
+
+        public boolean isBitrateModeSupported(final int mode) {
+            return mode >= 0 && mode < 32 && (mBitrateModes & (1 << mode)) != 0;
+        }
+
+        // Null if codec doesn't advertise this profile
+        public MediaCodecInfo.CodecProfileLevel profileLevel(final int profile) {
+            return mProfiles.get(profile);
+        }
+
+        private static boolean isHardware(final MediaCodecInfo info) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                return info.isHardwareAccelerated();
+            }
+            final String name = info.getName().toLowerCase(Locale.US);
+            return !name.startsWith("omx.google.") && !name.startsWith("c2.android.");
+        }
+    }
+
+    private static EncoderDatabase sInstance;
+
+    private final Map<String, List<Encoder>> mEncoders = new HashMap<>();
+
+    private EncoderDatabase() {
+        final MediaCodecList mediaCodecList = new MediaCodecList(MediaCodecList.REGULAR_CODECS);
+        for (MediaCodecInfo codecInfo : mediaCodecList.getCodecInfos()) {
+            if (!codecInfo.isEncoder()) {
+                continue;
+            }
+            for (String type : codecInfo.getSupportedTypes()) {
+                final String key = type.toLowerCase(Locale.US);
+                List<Encoder> list = mEncoders.get(key);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    mEncoders.put(key, list);
+                }
+                try {
+                    list.add(new Encoder(codecInfo, type));
+                } catch (IllegalArgumentException e) {
+                    // Some vendor codecs list types they can't report capabilities for
+                }
+            }
+        }
+    }
+
+    public static synchronized EncoderDatabase get() {
+        if (sInstance == null) {
+            sInstance = new EncoderDatabase();
+        }
+        return sInstance;
+    }
+
+    // Preferred encoder for mime type, null if there is none
+    public Encoder encoder(final String mimeType) {
+        final List<Encoder> list = mEncoders.get(mimeType.toLowerCase(Locale.US));
+        return list == null || list.isEmpty() ? null : list.get(0);
+    }
+
+    public List<Encoder> encoders(final String mimeType) {
+        final List<Encoder> list = mEncoders.get(mimeType.toLowerCase(Locale.US));
+        return list == null ? Collections.<Encoder>emptyList() : Collections.unmodifiableList(list);
+    }
+
+    public boolean hasEncoder(final String mimeType) {
+        return encoder(mimeType) != null;
+    }
+}
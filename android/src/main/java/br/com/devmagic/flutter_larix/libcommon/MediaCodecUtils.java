@@ -2,37 +2,26 @@ package br.com.devmagic.flutter_larix.libcommon;
 
 import android.annotation.TargetApi;
 import android.media.MediaCodecInfo;
-import android.media.MediaCodecList;
 import android.media.MediaFormat;
 import android.os.Build;
 
 import com.wmspanel.libstream.Streamer;
 
+import br.com.devmagic.flutter_larix.conditioner.QualityLadder;
+
 public class MediaCodecUtils {
 
     @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     public static MediaCodecInfo selectCodec(final String mimeType) {
-        final MediaCodecList mediaCodecList = new MediaCodecList(MediaCodecList.REGULAR_CODECS);
-        for (MediaCodecInfo codecInfo : mediaCodecList.getCodecInfos()) {
-            if (!codecInfo.isEncoder()) {
-                continue;
-            }
-            for (String type : codecInfo.getSupportedTypes()) {
-                if (type.equalsIgnoreCase(mimeType)) {
-                    return codecInfo;
-                }
-            }
-        }
-        return null;
+        final EncoderDatabase.Encoder encoder = EncoderDatabase.get().encoder(mimeType);
+        return encoder != null ? encoder.info : null;
     }
 
     public static Streamer.Size verifyResolution(final String type,
                                                  final Streamer.Size videoSize) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-            final MediaCodecInfo info = MediaCodecUtils.selectCodec(type);
-            final MediaCodecInfo.CodecCapabilities capabilities = info.getCapabilitiesForType(type);
-            final MediaCodecInfo.VideoCapabilities videoCapabilities = capabilities.getVideoCapabilities();
-            if (!videoCapabilities.isSizeSupported(videoSize.width, videoSize.height)) {
+            final EncoderDatabase.Encoder encoder = EncoderDatabase.get().encoder(type);
+            if (encoder != null && !encoder.isSizeSupported(videoSize.width, videoSize.height)) {
                 // 1280x720 should be supported by every device running Android 4.1+
                 // https://source.android.com/compatibility/4.1/android-4.1-cdd.pdf [chapter 5.2]
                 return new Streamer.Size(1280, 720);
@@ -41,6 +30,28 @@ public class MediaCodecUtils {
         return videoSize;
     }
 
+    // Encoder limits for QualityLadder, null when encoder capabilities are unknown
+    public static QualityLadder.Limits ladderLimits(final String type) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return null;
+        }
+        final EncoderDatabase.Encoder encoder = EncoderDatabase.get().encoder(type);
+        if (encoder == null || encoder.videoCapabilities == null) {
+            return null;
+        }
+        return new QualityLadder.Limits() {
+            @Override
+            public boolean isSupported(int width, int height, double fps) {
+                return encoder.videoCapabilities.areSizeAndRateSupported(width, height, fps);
+            }
+
+            @Override
+            public int clampBitrate(int bitrate) {
+                return encoder.bitrates != null ? encoder.bitrates.clamp(bitrate) : bitrate;
+            }
+        };
+    }
+
     public static int recommendedBitrateKbps(final String type,
                                              final int height,
                                              final float fps) {
@@ -64,7 +75,8 @@ public class MediaCodecUtils {
         }
         // HEVC promises a 50% storage reduction as its algorithm uses efficient coding by encoding
         // video at the lowest possible bit rate while maintaining a high image quality level.
-        if (MediaFormat.MIMETYPE_VIDEO_HEVC.equals(type)) {
+        // AV1 is at least as efficient, same reduction is a safe estimate
+        if (MediaFormat.MIMETYPE_VIDEO_HEVC.equals(type) || MediaFormat.MIMETYPE_VIDEO_AV1.equals(type)) {
             bitRate /= 2;
         }
         // Set bitrate to 1.6x for 50+ FPS modes
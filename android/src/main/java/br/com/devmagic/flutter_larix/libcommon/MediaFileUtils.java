@@ -101,6 +101,21 @@ public class MediaFileUtils {
         return null;
     }
 
+    // Records into app's own directory, no storage permission needed. Returns record file, null on failure.
+    @Nullable
+    public static File startRecordFile(final Streamer streamer,
+                                       final File dir,
+                                       final String basename,
+                                       final Streamer.Mode mode,
+                                       final boolean split) {
+        if (dir == null || (!dir.exists() && !dir.mkdirs())) {
+            return null;
+        }
+        final File f = new File(dir, createRecordFilename(basename, mode));
+        final boolean result = split ? streamer.splitRecord(f) : streamer.startRecord(f);
+        return result ? f : null;
+    }
+
     public static boolean startRecordDCIM(final Context context,
                                           final Streamer streamer,
                                           final String dirname,
@@ -261,6 +276,28 @@ public class MediaFileUtils {
         return result;
     }
 
+    // Removes finished record, uri and method are the ones passed to onRecordStateChanged
+    public static boolean deleteRecord(final Context context,
+                                       final Uri uri,
+                                       final Streamer.SaveMethod method) {
+        try {
+            switch (method) {
+                case FILE:
+                    return uri.getPath() != null && new File(uri.getPath()).delete();
+                case SAF:
+                    return Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP
+                            && DocumentsContract.deleteDocument(context.getContentResolver(), uri);
+                case MEDIA_STORE:
+                    return context.getContentResolver().delete(uri, null, null) > 0;
+                default:
+                    return false;
+            }
+        } catch (IOException | IllegalArgumentException | SecurityException | UnsupportedOperationException e) {
+            Log.e(TAG, Log.getStackTraceString(e));
+            return false;
+        }
+    }
+
     @Nullable
     public static String onCompleted(final Context context,
                                      final Uri uri,
@@ -4,8 +4,11 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
 import android.net.NetworkInfo;
 import android.os.BatteryManager;
+import android.os.Build;
 
 @SuppressWarnings("MissingPermission")
 public class PlatformUtils {
@@ -13,23 +16,49 @@ public class PlatformUtils {
     private static final IntentFilter actionBatteryChanged = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
 
     public static boolean isBatteryLevelCritical(final Context context) {
+        final double frac = batteryLevel(context);
+        //Log.d(TAG, "battery level at: " + frac);
+        return frac >= 0 && frac < .07;
+    }
+
+    // 0.0..1.0, negative when unknown
+    public static double batteryLevel(final Context context) {
         final Intent status = context.registerReceiver(null, actionBatteryChanged);
         if (status == null) {
-            return false;
+            return -1;
         }
         final int level = status.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
         final int scale = status.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
-        final double frac = level / (double) scale;
-        //Log.d(TAG, "battery level at: " + frac);
-        return frac < .07;
+        return level >= 0 && scale > 0 ? level / (double) scale : -1;
+    }
+
+    public static boolean isCharging(final Context context) {
+        final Intent status = context.registerReceiver(null, actionBatteryChanged);
+        return status != null && status.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    }
+
+    // Battery temperature in Celsius, NaN when unknown. Only thermal hint on devices before Android 10.
+    public static double batteryTemperature(final Context context) {
+        final Intent status = context.registerReceiver(null, actionBatteryChanged);
+        if (status == null) {
+            return Double.NaN;
+        }
+        final int tenths = status.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, Integer.MIN_VALUE);
+        return tenths == Integer.MIN_VALUE ? Double.NaN : tenths / 10.0;
     }
 
     // https://developer.android.com/training/monitoring-device-state/connectivity-monitoring.html
+    @SuppressWarnings("deprecation")
     public static boolean isConnected(final Context context) {
         final ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
         if (cm == null) {
             return false;
         }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            final Network network = cm.getActiveNetwork();
+            final NetworkCapabilities capabilities = network != null ? cm.getNetworkCapabilities(network) : null;
+            return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+        }
         final NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
         return activeNetwork != null && activeNetwork.isConnected();
     }
@@ -86,6 +86,23 @@ public class UriResult {
         return isSldp(scheme);
     }
 
+    // Scheme, host and port only, for logs: path, query and user info carry stream key, streamid and credentials
+    public static String redact(final String uri) {
+        if (uri == null) {
+            return "null";
+        }
+        try {
+            final URI parsed = new URI(uri);
+            if (parsed.getScheme() == null || parsed.getHost() == null) {
+                return "<invalid uri>";
+            }
+            final int port = parsed.getPort();
+            return parsed.getScheme() + "://" + parsed.getHost() + (port > 0 ? ":" + port : "");
+        } catch (URISyntaxException e) {
+            return "<invalid uri>";
+        }
+    }
+
     public static UriResult parseUri(final String originalUri, boolean playback) {
         final UriResult connection = new UriResult();
         connection.isPlayback = playback;
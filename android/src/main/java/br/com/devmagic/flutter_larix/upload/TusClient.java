@@ -0,0 +1,154 @@
+package br.com.devmagic.flutter_larix.upload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+// Minimal tus 1.0.0 client (core protocol and creation extension), https://tus.io/protocols/resumable-upload
+// Upload is created once, then bytes go in PATCH requests from the offset server confirmed,
+// so a dropped request costs at most one chunk.
+// HttpURLConnection can't send PATCH, it goes as POST with X-HTTP-Method-Override which tus servers accept.
+// Plain Java, used from UploadQueue worker threads.
+final class TusClient {
+    static final String TUS_VERSION = "1.0.0";
+    static final String OFFSET_CONTENT_TYPE = "application/offset+octet-stream";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int CONNECT_TIMEOUT = 15_000;
+    private static final int READ_TIMEOUT = 30_000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Map<String, String> mHeaders;
+
+    // Extra headers, e.g. authorization, go with every request
+    TusClient(Map<String, String> headers) {
+        mHeaders = headers;
+    }
+
+    // Creates upload of given length, returns its URL
+    String create(String endpoint, long length, String name) throws IOException {
+        final HttpURLConnection connection = open(new URL(endpoint), "POST");
+        try {
+            connection.setRequestProperty("Upload-Length", Long.toString(length));
+            if (name != null) {
+                connection.setRequestProperty("Upload-Metadata", "filename " + base64(name.getBytes(UTF_8)));
+            }
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(0);
+            connection.getOutputStream().close();
+            final int code = connection.getResponseCode();
+            final String location = connection.getHeaderField("Location");
+            if (code != HttpURLConnection.HTTP_CREATED || location == null) {
+                throw new UploadException("Create failed: HTTP " + code, isPermanent(code));
+            }
+            return new URL(new URL(endpoint), location).toString();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // Offset server has stored for the upload
+    long offset(String uploadUrl) throws IOException {
+        final HttpURLConnection connection = open(new URL(uploadUrl), "HEAD");
+        try {
+            final int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_NOT_FOUND || code == HttpURLConnection.HTTP_GONE) {
+                throw new UploadException("Upload expired: HTTP " + code, false, true);
+            }
+            if (code / 100 != 2) {
+                throw new UploadException("Offset query failed: HTTP " + code, isPermanent(code));
+            }
+            return parseOffset(connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // Sends up to count bytes from in starting at offset, returns new offset confirmed by server
+    long patch(String uploadUrl, long offset, InputStream in, int count) throws IOException {
+        final HttpURLConnection connection = open(new URL(uploadUrl), "POST");
+        try {
+            connection.setRequestProperty("X-HTTP-Method-Override", "PATCH");
+            connection.setRequestProperty("Upload-Offset", Long.toString(offset));
+            connection.setRequestProperty("Content-Type", OFFSET_CONTENT_TYPE);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(count);
+            try (OutputStream out = connection.getOutputStream()) {
+                final byte[] buffer = new byte[Math.min(BUFFER_SIZE, Math.max(1, count))];
+                int left = count;
+                while (left > 0) {
+                    final int read = in.read(buffer, 0, Math.min(buffer.length, left));
+                    if (read < 0) {
+                        throw new IOException("Source ended " + left + " bytes early");
+                    }
+                    out.write(buffer, 0, read);
+                    left -= read;
+                }
+            }
+            final int code = connection.getResponseCode();
+            if (code == HttpURLConnection.HTTP_CONFLICT) {
+                // Offset mismatch, caller asks server for the right one
+                throw new UploadException("Offset conflict", false);
+            }
+            if (code == HttpURLConnection.HTTP_NOT_FOUND || code == HttpURLConnection.HTTP_GONE) {
+                throw new UploadException("Upload expired: HTTP " + code, false, true);
+            }
+            if (code / 100 != 2) {
+                throw new UploadException("Patch failed: HTTP " + code, isPermanent(code));
+            }
+            return parseOffset(connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(URL url, String method) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        connection.setUseCaches(false);
+        connection.setRequestProperty("Tus-Resumable", TUS_VERSION);
+        if (mHeaders != null) {
+            for (Map.Entry<String, String> header : mHeaders.entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+        }
+        return connection;
+    }
+
+    private static long parseOffset(HttpURLConnection connection) throws IOException {
+        final String offset = connection.getHeaderField("Upload-Offset");
+        try {
+            return Long.parseLong(offset);
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad Upload-Offset: " + offset);
+        }
+    }
+
+    // Client errors won't go away on retry, except timeout and rate limit
+    private static boolean isPermanent(int code) {
+        return code / 100 == 4 && code != 408 && code != 429;
+    }
+
+    // java.util.Base64 is API 26+, android.util.Base64 is not on JVM
+    private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    static String base64(byte[] data) {
+        final StringBuilder sb = new StringBuilder((data.length + 2) / 3 * 4);
+        for (int i = 0; i < data.length; i += 3) {
+            final int b0 = data[i] & 0xff;
+            final int b1 = i + 1 < data.length ? data[i + 1] & 0xff : 0;
+            final int b2 = i + 2 < data.length ? data[i + 2] & 0xff : 0;
+            sb.append(BASE64[b0 >> 2]);
+            sb.append(BASE64[((b0 & 0x03) << 4) | (b1 >> 4)]);
+            sb.append(i + 1 < data.length ? BASE64[((b1 & 0x0f) << 2) | (b2 >> 6)] : '=');
+            sb.append(i + 2 < data.length ? BASE64[b2 & 0x3f] : '=');
+        }
+        return sb.toString();
+    }
+}
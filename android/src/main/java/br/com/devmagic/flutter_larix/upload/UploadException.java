@@ -0,0 +1,22 @@
+package br.com.devmagic.flutter_larix.upload;
+
+import java.io.IOException;
+
+// Failed upload request. Permanent ones are not retried,
+// expired means server forgot the upload and it has to be created again.
+class UploadException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    final boolean permanent;
+    final boolean expired;
+
+    UploadException(String message, boolean permanent) {
+        this(message, permanent, false);
+    }
+
+    UploadException(String message, boolean permanent, boolean expired) {
+        super(message);
+        this.permanent = permanent;
+        this.expired = expired;
+    }
+}
@@ -0,0 +1,58 @@
+package br.com.devmagic.flutter_larix.upload;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// One file in UploadQueue. Fields are guarded by the queue, listeners get copies.
+public final class UploadItem {
+    public enum State {
+        QUEUED, UPLOADING, DONE, FAILED
+    }
+
+    public final long id;
+    // file path, file:// or content:// uri, opened through UploadQueue.Source
+    public final String uri;
+    public final String name;
+    public long length = -1;
+    // tus upload URL, null until created on server
+    public String uploadUrl;
+    // Bytes server confirmed
+    public long offset;
+    public State state = State.QUEUED;
+    // Failed attempts in a row, reset by any progress
+    public int attempts;
+    public String error;
+    // Not persisted, queued items wait for it after failure
+    long retryAt;
+
+    UploadItem(long id, String uri, String name) {
+        this.id = id;
+        this.uri = uri;
+        this.name = name;
+    }
+
+    UploadItem copy() {
+        final UploadItem item = new UploadItem(id, uri, name);
+        item.length = length;
+        item.uploadUrl = uploadUrl;
+        item.offset = offset;
+        item.state = state;
+        item.attempts = attempts;
+        item.error = error;
+        item.retryAt = retryAt;
+        return item;
+    }
+
+    public Map<String, Object> toMap() {
+        final Map<String, Object> data = new HashMap<>();
+        data.put("id", id);
+        data.put("uri", uri);
+        data.put("name", name);
+        data.put("length", length);
+        data.put("offset", offset);
+        data.put("state", state.name());
+        data.put("attempts", attempts);
+        data.put("error", error);
+        return data;
+    }
+}
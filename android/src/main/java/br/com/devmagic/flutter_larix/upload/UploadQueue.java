@@ -0,0 +1,506 @@
+package br.com.devmagic.flutter_larix.upload;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+// Persistent queue of files uploaded to a tus server in resumable chunks, at most maxParallel at a time.
+// Queue and configuration are saved to state file after every change and every chunk,
+// a new queue on the same file continues where the previous process stopped.
+// Holds (e.g. a live stream using the uplink) pause uploads after the chunk in flight.
+// Plain Java, Android specifics are behind Source.
+public final class UploadQueue {
+
+    // Reads queued files, uri is whatever was passed to enqueue()
+    public interface Source {
+        long length(String uri) throws IOException;
+
+        InputStream open(String uri) throws IOException;
+    }
+
+    // Called on worker thread with a copy of changed item
+    public interface Listener {
+        void onUploadChanged(UploadItem item);
+    }
+
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_MAX_PARALLEL = 2;
+    static final int MAX_PARALLEL_LIMIT = 4;
+    static final int MIN_CHUNK_SIZE = 64 * 1024;
+    static final long RETRY_DELAY = 2_000;
+    static final long MAX_RETRY_DELAY = 60_000;
+    // Finished items kept for listing, oldest dropped first
+    static final int MAX_DONE_ITEMS = 100;
+
+    private static final int STATE_VERSION = 1;
+    // java.util.logging ends up in logcat on Android and on console on JVM
+    private static final Logger LOG = Logger.getLogger("UploadQueue");
+
+    private final File mStateFile;
+    private final Source mSource;
+    private final Listener mListener;
+    private final ScheduledExecutorService mExecutor;
+
+    // Guarded by this
+    private final Map<Long, UploadItem> mItems = new LinkedHashMap<>();
+    private final Set<Object> mHolds = new HashSet<>();
+    private String mEndpoint;
+    private Map<String, String> mHeaders = Collections.emptyMap();
+    private int mChunkSize = DEFAULT_CHUNK_SIZE;
+    private int mMaxParallel = DEFAULT_MAX_PARALLEL;
+    private long mNextId = 1;
+    private int mRunning;
+    private ScheduledFuture<?> mRetryTask;
+    private boolean mShutdown;
+
+    public UploadQueue(File stateFile, Source source, Listener listener) {
+        mStateFile = stateFile;
+        mSource = source;
+        mListener = listener;
+        mExecutor = Executors.newScheduledThreadPool(MAX_PARALLEL_LIMIT, new ThreadFactory() {
+            private int mCount;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "LarixUpload-" + (++mCount));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        synchronized (this) {
+            load();
+        }
+        pump();
+    }
+
+    // Null endpoint stops starting new uploads, running ones finish their chunk and wait
+    public void configure(String endpoint, Map<String, String> headers, int chunkSize, int maxParallel) {
+        synchronized (this) {
+            mEndpoint = endpoint;
+            mHeaders = headers != null ? new HashMap<>(headers) : Collections.<String, String>emptyMap();
+            mChunkSize = chunkSize > 0 ? Math.max(MIN_CHUNK_SIZE, chunkSize) : DEFAULT_CHUNK_SIZE;
+            mMaxParallel = maxParallel > 0 ? Math.min(MAX_PARALLEL_LIMIT, maxParallel) : DEFAULT_MAX_PARALLEL;
+            save();
+        }
+        pump();
+    }
+
+    public synchronized boolean isConfigured() {
+        return mEndpoint != null;
+    }
+
+    // Returns id of queued item, the same one when uri is already queued
+    public long enqueue(String uri, String name) {
+        final UploadItem copy;
+        synchronized (this) {
+            for (UploadItem item : mItems.values()) {
+                if (item.uri.equals(uri) && item.state != UploadItem.State.DONE) {
+                    return item.id;
+                }
+            }
+            final UploadItem item = new UploadItem(mNextId++, uri, name);
+            mItems.put(item.id, item);
+            save();
+            copy = item.copy();
+        }
+        mListener.onUploadChanged(copy);
+        pump();
+        return copy.id;
+    }
+
+    // Running upload stops after current chunk, file on server is left as is
+    public synchronized boolean remove(long id) {
+        final boolean removed = mItems.remove(id) != null;
+        if (removed) {
+            save();
+        }
+        return removed;
+    }
+
+    // Failed items go back to queue, attempts start over
+    public void retryFailed() {
+        synchronized (this) {
+            for (UploadItem item : mItems.values()) {
+                if (item.state == UploadItem.State.FAILED) {
+                    item.state = UploadItem.State.QUEUED;
+                    item.attempts = 0;
+                    item.retryAt = 0;
+                    item.error = null;
+                }
+            }
+            save();
+        }
+        pump();
+    }
+
+    // Uploads are paused while any key holds the queue
+    public void setHold(Object key, boolean hold) {
+        final boolean released;
+        synchronized (this) {
+            if (hold) {
+                mHolds.add(key);
+            }
+            released = !hold && mHolds.remove(key) && mHolds.isEmpty();
+        }
+        if (released) {
+            pump();
+        }
+    }
+
+    public synchronized boolean isHeld() {
+        return !mHolds.isEmpty();
+    }
+
+    public synchronized List<UploadItem> items() {
+        final List<UploadItem> items = new ArrayList<>(mItems.size());
+        for (UploadItem item : mItems.values()) {
+            items.add(item.copy());
+        }
+        return items;
+    }
+
+    public void shutdown() {
+        synchronized (this) {
+            mShutdown = true;
+        }
+        mExecutor.shutdown();
+    }
+
+    // Waits for uploads in flight to stop after shutdown(), for tests and tools
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return mExecutor.awaitTermination(timeout, unit);
+    }
+
+    private synchronized boolean canRun(UploadItem item) {
+        return !mShutdown && mHolds.isEmpty() && mEndpoint != null && mItems.get(item.id) == item;
+    }
+
+    // Starts queued items up to maxParallel, schedules itself for the earliest retry
+    private void pump() {
+        final List<UploadItem> started = new ArrayList<>();
+        synchronized (this) {
+            if (mShutdown || mEndpoint == null || !mHolds.isEmpty()) {
+                return;
+            }
+            final long now = System.currentTimeMillis();
+            long nextRetry = Long.MAX_VALUE;
+            for (UploadItem item : mItems.values()) {
+                if (item.state != UploadItem.State.QUEUED) {
+                    continue;
+                }
+                if (item.retryAt > now) {
+                    nextRetry = Math.min(nextRetry, item.retryAt);
+                    continue;
+                }
+                if (mRunning >= mMaxParallel) {
+                    break;
+                }
+                item.state = UploadItem.State.UPLOADING;
+                mRunning++;
+                started.add(item);
+            }
+            if (nextRetry != Long.MAX_VALUE && mRetryTask == null) {
+                mRetryTask = mExecutor.schedule(() -> {
+                    synchronized (UploadQueue.this) {
+                        mRetryTask = null;
+                    }
+                    pump();
+                }, nextRetry - now, TimeUnit.MILLISECONDS);
+            }
+        }
+        for (final UploadItem item : started) {
+            try {
+                mExecutor.execute(() -> run(item));
+            } catch (RejectedExecutionException e) {
+                // Shut down meanwhile, item stays queued in saved state
+                synchronized (this) {
+                    mRunning--;
+                    item.state = UploadItem.State.QUEUED;
+                }
+            }
+        }
+    }
+
+    private void run(UploadItem item) {
+        try {
+            upload(item);
+        } finally {
+            synchronized (this) {
+                mRunning--;
+            }
+            pump();
+        }
+    }
+
+    private void upload(UploadItem item) {
+        final String endpoint;
+        final TusClient client;
+        final int chunkSize;
+        synchronized (this) {
+            endpoint = mEndpoint;
+            client = new TusClient(mHeaders);
+            chunkSize = mChunkSize;
+        }
+        try {
+            if (endpoint == null) {
+                requeue(item);
+                return;
+            }
+            if (item.length < 0) {
+                final long length = mSource.length(item.uri);
+                synchronized (this) {
+                    item.length = length;
+                }
+            }
+            if (item.uploadUrl == null) {
+                final String uploadUrl = client.create(endpoint, item.length, item.name);
+                synchronized (this) {
+                    item.uploadUrl = uploadUrl;
+                    item.offset = 0;
+                    save();
+                }
+            } else {
+                final long offset = client.offset(item.uploadUrl);
+                synchronized (this) {
+                    item.offset = offset;
+                }
+            }
+            try (InputStream in = mSource.open(item.uri)) {
+                skipFully(in, item.offset);
+                while (item.offset < item.length) {
+                    if (!canRun(item)) {
+                        requeue(item);
+                        return;
+                    }
+                    final int count = (int) Math.min(chunkSize, item.length - item.offset);
+                    final long offset = client.patch(item.uploadUrl, item.offset, in, count);
+                    if (offset != item.offset + count) {
+                        // Server kept part of the chunk, stream is past it; reopen and ask server on retry
+                        throw new IOException("Server stored " + (offset - item.offset) + " of " + count + " bytes");
+                    }
+                    synchronized (this) {
+                        item.offset = offset;
+                        item.attempts = 0;
+                        item.error = null;
+                        save();
+                    }
+                    notifyChanged(item);
+                }
+            }
+            synchronized (this) {
+                item.state = UploadItem.State.DONE;
+                pruneDone();
+                save();
+            }
+            notifyChanged(item);
+        } catch (UploadException e) {
+            if (e.expired) {
+                synchronized (this) {
+                    item.uploadUrl = null;
+                    item.offset = 0;
+                }
+            }
+            fail(item, e, e.permanent);
+        } catch (IOException | RuntimeException e) {
+            fail(item, e, false);
+        }
+    }
+
+    private void requeue(UploadItem item) {
+        synchronized (this) {
+            if (item.state == UploadItem.State.UPLOADING) {
+                item.state = UploadItem.State.QUEUED;
+            }
+            save();
+        }
+        notifyChanged(item);
+    }
+
+    private void fail(UploadItem item, Exception e, boolean permanent) {
+        synchronized (this) {
+            item.attempts++;
+            item.error = e.getMessage();
+            if (permanent) {
+                item.state = UploadItem.State.FAILED;
+            } else {
+                item.state = UploadItem.State.QUEUED;
+                final long delay = Math.min(MAX_RETRY_DELAY, RETRY_DELAY << Math.min(10, item.attempts - 1));
+                item.retryAt = System.currentTimeMillis() + delay;
+            }
+            save();
+        }
+        notifyChanged(item);
+    }
+
+    private void notifyChanged(UploadItem item) {
+        final UploadItem copy;
+        synchronized (this) {
+            if (mItems.get(item.id) != item) {
+                return;
+            }
+            copy = item.copy();
+        }
+        mListener.onUploadChanged(copy);
+    }
+
+    private void pruneDone() {
+        int done = 0;
+        for (UploadItem item : mItems.values()) {
+            if (item.state == UploadItem.State.DONE) {
+                done++;
+            }
+        }
+        final Iterator<UploadItem> it = mItems.values().iterator();
+        while (done > MAX_DONE_ITEMS && it.hasNext()) {
+            if (it.next().state == UploadItem.State.DONE) {
+                it.remove();
+                done--;
+            }
+        }
+    }
+
+    private static void skipFully(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            final long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new IOException("Source is shorter than uploaded offset");
+                }
+                count--;
+            } else {
+                count -= skipped;
+            }
+        }
+    }
+
+    private void load() {
+        if (mStateFile == null || !mStateFile.exists()) {
+            return;
+        }
+        final Properties state = new Properties();
+        try (InputStream in = new FileInputStream(mStateFile)) {
+            state.load(in);
+        } catch (IOException e) {
+            LOG.warning("Failed to read " + mStateFile + ": " + e.getMessage());
+            return;
+        }
+        if (getLong(state, "version", 0) != STATE_VERSION) {
+            return;
+        }
+        mEndpoint = state.getProperty("endpoint");
+        mChunkSize = (int) getLong(state, "chunkSize", DEFAULT_CHUNK_SIZE);
+        mMaxParallel = (int) getLong(state, "maxParallel", DEFAULT_MAX_PARALLEL);
+        mNextId = getLong(state, "nextId", 1);
+        final Map<String, String> headers = new HashMap<>();
+        final List<Long> ids = new ArrayList<>();
+        for (String key : state.stringPropertyNames()) {
+            if (key.startsWith("header.")) {
+                headers.put(key.substring("header.".length()), state.getProperty(key));
+            } else if (key.startsWith("item.") && key.endsWith(".uri")) {
+                try {
+                    ids.add(Long.parseLong(key.substring("item.".length(), key.length() - ".uri".length())));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        mHeaders = headers;
+        Collections.sort(ids);
+        for (long id : ids) {
+            final String prefix = "item." + id + ".";
+            final UploadItem item = new UploadItem(id, state.getProperty(prefix + "uri"), state.getProperty(prefix + "name"));
+            item.length = getLong(state, prefix + "length", -1);
+            item.uploadUrl = state.getProperty(prefix + "url");
+            item.offset = getLong(state, prefix + "offset", 0);
+            item.attempts = (int) getLong(state, prefix + "attempts", 0);
+            item.error = state.getProperty(prefix + "error");
+            try {
+                item.state = UploadItem.State.valueOf(state.getProperty(prefix + "state"));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                item.state = UploadItem.State.QUEUED;
+            }
+            if (item.state == UploadItem.State.UPLOADING) {
+                // Process died mid-upload, server knows the real offset
+                item.state = UploadItem.State.QUEUED;
+            }
+            mItems.put(id, item);
+            mNextId = Math.max(mNextId, id + 1);
+        }
+    }
+
+    // Written to temporary file first, so crash in the middle never leaves broken state
+    private void save() {
+        if (mStateFile == null) {
+            return;
+        }
+        final Properties state = new Properties();
+        state.setProperty("version", Integer.toString(STATE_VERSION));
+        if (mEndpoint != null) {
+            state.setProperty("endpoint", mEndpoint);
+        }
+        state.setProperty("chunkSize", Integer.toString(mChunkSize));
+        state.setProperty("maxParallel", Integer.toString(mMaxParallel));
+        state.setProperty("nextId", Long.toString(mNextId));
+        for (Map.Entry<String, String> header : mHeaders.entrySet()) {
+            state.setProperty("header." + header.getKey(), header.getValue());
+        }
+        for (UploadItem item : mItems.values()) {
+            final String prefix = "item." + item.id + ".";
+            state.setProperty(prefix + "uri", item.uri);
+            if (item.name != null) {
+                state.setProperty(prefix + "name", item.name);
+            }
+            state.setProperty(prefix + "length", Long.toString(item.length));
+            if (item.uploadUrl != null) {
+                state.setProperty(prefix + "url", item.uploadUrl);
+            }
+            state.setProperty(prefix + "offset", Long.toString(item.offset));
+            state.setProperty(prefix + "state", item.state.name());
+            state.setProperty(prefix + "attempts", Integer.toString(item.attempts));
+            if (item.error != null) {
+                state.setProperty(prefix + "error", item.error);
+            }
+        }
+        final File tmp = new File(mStateFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            state.store(out, null);
+        } catch (IOException e) {
+            LOG.warning("Failed to write " + tmp + ": " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(mStateFile)) {
+            LOG.warning("Failed to rename " + tmp);
+        }
+    }
+
+    private static long getLong(Properties state, String key, long defValue) {
+        final String value = state.getProperty(key);
+        if (value == null) {
+            return defValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defValue;
+        }
+    }
+}
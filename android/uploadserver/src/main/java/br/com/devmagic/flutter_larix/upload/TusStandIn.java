@@ -0,0 +1,263 @@
+package br.com.devmagic.flutter_larix.upload;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Small tus 1.0.0 server (core and creation) storing uploads in a directory.
+// Not for production: no expiration, no auth, everything is kept in memory and on disk as is.
+// Can drop requests in the middle of the body, like a mobile uplink does, to exercise resume.
+//
+// Options:
+//   --port <n>            1080 by default, 0 picks a free one
+//   --dir <dir>           where uploads are stored, temp dir by default
+//   --drop-every <n>      cuts every n-th PATCH after half of its body, 0 (default) never
+public final class TusStandIn {
+
+    static final String FILES_PATH = "/files/";
+
+    private static final class Upload {
+        final File file;
+        final long length;
+        long offset;
+
+        Upload(File file, long length) {
+            this.file = file;
+            this.length = length;
+        }
+    }
+
+    private final HttpServer mServer;
+    private final File mDir;
+    private final int mDropEvery;
+    private final Map<String, Upload> mUploads = new HashMap<>();
+    private final AtomicInteger mNextId = new AtomicInteger(1);
+    private final AtomicInteger mPatches = new AtomicInteger();
+    private final AtomicInteger mDropped = new AtomicInteger();
+    private final AtomicLong mBytesReceived = new AtomicLong();
+
+    TusStandIn(int port, File dir, int dropEvery) throws IOException {
+        mDir = dir;
+        mDropEvery = dropEvery;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create " + dir);
+        }
+        mServer = HttpServer.create(new InetSocketAddress(port), 0);
+        mServer.createContext(FILES_PATH, this::handle);
+        mServer.setExecutor(Executors.newCachedThreadPool());
+    }
+
+    void start() {
+        mServer.start();
+    }
+
+    void stop() {
+        mServer.stop(0);
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort() + FILES_PATH;
+    }
+
+    int dropped() {
+        return mDropped.get();
+    }
+
+    long bytesReceived() {
+        return mBytesReceived.get();
+    }
+
+    // Stored file of upload with given URL, null if unknown
+    synchronized File fileFor(String uploadUrl) {
+        final Upload upload = mUploads.get(idOf(uploadUrl));
+        return upload != null ? upload.file : null;
+    }
+
+    synchronized int uploads() {
+        return mUploads.size();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            exchange.getResponseHeaders().set("Tus-Resumable", TusClient.TUS_VERSION);
+            String method = exchange.getRequestMethod().toUpperCase(Locale.US);
+            final String override = exchange.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+            if ("POST".equals(method) && override != null) {
+                method = override.toUpperCase(Locale.US);
+            }
+            final String id = idOf(exchange.getRequestURI().getPath());
+            switch (method) {
+                case "OPTIONS":
+                    exchange.getResponseHeaders().set("Tus-Version", TusClient.TUS_VERSION);
+                    exchange.getResponseHeaders().set("Tus-Extension", "creation");
+                    send(exchange, 204);
+                    break;
+                case "POST":
+                    create(exchange);
+                    break;
+                case "HEAD":
+                    head(exchange, id);
+                    break;
+                case "PATCH":
+                    patch(exchange, id);
+                    break;
+                default:
+                    send(exchange, 405);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void create(HttpExchange exchange) throws IOException {
+        final long length;
+        try {
+            length = Long.parseLong(exchange.getRequestHeaders().getFirst("Upload-Length"));
+        } catch (NumberFormatException e) {
+            send(exchange, 400);
+            return;
+        }
+        final String id = Integer.toString(mNextId.getAndIncrement());
+        final File file = new File(mDir, "upload_" + id);
+        new RandomAccessFile(file, "rw").close();
+        synchronized (this) {
+            mUploads.put(id, new Upload(file, length));
+        }
+        exchange.getResponseHeaders().set("Location", FILES_PATH + id);
+        send(exchange, 201);
+    }
+
+    private void head(HttpExchange exchange, String id) throws IOException {
+        final Upload upload;
+        synchronized (this) {
+            upload = mUploads.get(id);
+        }
+        if (upload == null) {
+            send(exchange, 404);
+            return;
+        }
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        synchronized (upload) {
+            exchange.getResponseHeaders().set("Upload-Offset", Long.toString(upload.offset));
+            exchange.getResponseHeaders().set("Upload-Length", Long.toString(upload.length));
+        }
+        send(exchange, 200);
+    }
+
+    private void patch(HttpExchange exchange, String id) throws IOException {
+        final Upload upload;
+        synchronized (this) {
+            upload = mUploads.get(id);
+        }
+        if (upload == null) {
+            send(exchange, 404);
+            return;
+        }
+        if (!TusClient.OFFSET_CONTENT_TYPE.equals(exchange.getRequestHeaders().getFirst("Content-Type"))) {
+            send(exchange, 415);
+            return;
+        }
+        final long offset;
+        try {
+            offset = Long.parseLong(exchange.getRequestHeaders().getFirst("Upload-Offset"));
+        } catch (NumberFormatException e) {
+            send(exchange, 400);
+            return;
+        }
+        final String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        final long bodyLength = contentLength != null ? Long.parseLong(contentLength) : -1;
+        final boolean drop = mDropEvery > 0 && mPatches.incrementAndGet() % mDropEvery == 0;
+        synchronized (upload) {
+            if (offset != upload.offset) {
+                send(exchange, 409);
+                return;
+            }
+            // Like a real server, keeps whatever arrived before connection broke
+            final long limit = drop && bodyLength > 0 ? bodyLength / 2 : Long.MAX_VALUE;
+            final long received = store(exchange.getRequestBody(), upload, limit);
+            upload.offset += received;
+            mBytesReceived.addAndGet(received);
+            if (drop) {
+                mDropped.incrementAndGet();
+                // Closing without response looks like a broken connection to the client
+                throw new IOException("Dropped PATCH of upload " + id + " at " + upload.offset);
+            }
+            exchange.getResponseHeaders().set("Upload-Offset", Long.toString(upload.offset));
+        }
+        send(exchange, 204);
+    }
+
+    private static long store(InputStream in, Upload upload, long limit) throws IOException {
+        long received = 0;
+        final byte[] buffer = new byte[64 * 1024];
+        try (RandomAccessFile out = new RandomAccessFile(upload.file, "rw")) {
+            out.seek(upload.offset);
+            while (received < limit && upload.offset + received < upload.length) {
+                final int read = in.read(buffer, 0, (int) Math.min(buffer.length,
+                        Math.min(limit - received, upload.length - upload.offset - received)));
+                if (read < 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                received += read;
+            }
+        }
+        return received;
+    }
+
+    private static void send(HttpExchange exchange, int code) throws IOException {
+        exchange.sendResponseHeaders(code, -1);
+    }
+
+    private static String idOf(String path) {
+        final int slash = path.lastIndexOf('/');
+        return slash >= 0 ? path.substring(slash + 1) : path;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 1080;
+        File dir = null;
+        int dropEvery = 0;
+        for (int i = 0; i < args.length; i++) {
+            final String value = i + 1 < args.length ? args[i + 1] : null;
+            if (value == null) {
+                throw new IllegalArgumentException(args[i] + " needs a value");
+            }
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--dir":
+                    dir = new File(value);
+                    break;
+                case "--drop-every":
+                    dropEvery = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+            i++;
+        }
+        if (dir == null) {
+            dir = File.createTempFile("tus", "");
+            if (!dir.delete() || !dir.mkdirs()) {
+                throw new IOException("Can't create " + dir);
+            }
+        }
+        final TusStandIn server = new TusStandIn(port, dir, dropEvery);
+        server.start();
+        System.out.println("tus stand-in at " + server.endpoint().replace("127.0.0.1", "0.0.0.0")
+                + ", storing to " + dir.getAbsolutePath());
+    }
+}
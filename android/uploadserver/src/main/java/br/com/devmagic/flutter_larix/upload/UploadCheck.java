@@ -0,0 +1,142 @@
+package br.com.devmagic.flutter_larix.upload;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Uploads files through UploadQueue to TusStandIn which drops some requests mid-body,
+// holds the queue for a while, then restarts it from saved state halfway through.
+// Exits with status 1 when any file doesn't arrive intact.
+public final class UploadCheck {
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final int[] SIZES = {3 * 1024 * 1024 + 17, 700 * 1024, 1536 * 1024};
+    private static final long TIMEOUT = 120_000;
+
+    private static final UploadQueue.Source FILE_SOURCE = new UploadQueue.Source() {
+        @Override
+        public long length(String uri) throws IOException {
+            final File file = new File(uri);
+            if (!file.exists()) {
+                throw new IOException("No " + uri);
+            }
+            return file.length();
+        }
+
+        @Override
+        public InputStream open(String uri) throws IOException {
+            return new FileInputStream(uri);
+        }
+    };
+
+    public static void main(String[] args) throws Exception {
+        final File root = Files.createTempDirectory("uploadcheck").toFile();
+        final TusStandIn server = new TusStandIn(0, new File(root, "server"), 4);
+        server.start();
+        final File state = new File(root, "queue.properties");
+        final List<File> files = new ArrayList<>();
+        final Random random = new Random(1);
+        for (int i = 0; i < SIZES.length; i++) {
+            final File file = new File(root, "segment_" + (i + 1) + ".mp4");
+            final byte[] data = new byte[SIZES[i]];
+            random.nextBytes(data);
+            try (OutputStream out = new FileOutputStream(file)) {
+                out.write(data);
+            }
+            files.add(file);
+        }
+
+        boolean ok = true;
+        final long start = System.currentTimeMillis();
+        try {
+            UploadQueue queue = new UploadQueue(state, FILE_SOURCE, item -> { });
+            queue.configure(server.endpoint(), null, CHUNK_SIZE, 2);
+            queue.setHold("stream", true);
+            for (File file : files) {
+                queue.enqueue(file.getPath(), file.getName());
+            }
+            Thread.sleep(500);
+            if (server.bytesReceived() != 0) {
+                System.out.println("FAIL: uploaded while held");
+                ok = false;
+            }
+            queue.setHold("stream", false);
+
+            // Restart once a third is uploaded, new queue only knows what state file says
+            final long total = sum(SIZES);
+            waitFor(() -> server.bytesReceived() >= total / 3);
+            queue.shutdown();
+            queue.awaitTermination(30, TimeUnit.SECONDS);
+            final long beforeRestart = server.bytesReceived();
+            queue = new UploadQueue(state, FILE_SOURCE, item -> { });
+            final UploadQueue restarted = queue;
+            waitFor(() -> allDone(restarted));
+            queue.shutdown();
+
+            for (UploadItem item : queue.items()) {
+                final File stored = server.fileFor(item.uploadUrl);
+                final boolean same = item.state == UploadItem.State.DONE && stored != null
+                        && Arrays.equals(Files.readAllBytes(new File(item.uri).toPath()), Files.readAllBytes(stored.toPath()));
+                System.out.printf(Locale.US, "%-16s %9d bytes  %s%n", item.name, item.length, same ? "ok" : "MISMATCH " + item.state);
+                ok &= same;
+            }
+            System.out.printf(Locale.US, "%d uploads, %d requests dropped, %d bytes received (%d before restart), %.1f s%n",
+                    server.uploads(), server.dropped(), server.bytesReceived(), beforeRestart,
+                    (System.currentTimeMillis() - start) / 1000.0);
+            if (server.bytesReceived() != total) {
+                // Resume must continue from server offset, never send bytes twice
+                System.out.println("FAIL: expected " + total + " bytes received");
+                ok = false;
+            }
+            if (server.uploads() != files.size()) {
+                System.out.println("FAIL: restart created uploads again");
+                ok = false;
+            }
+        } finally {
+            server.stop();
+        }
+        System.out.println(ok ? "OK" : "FAILED");
+        System.exit(ok ? 0 : 1);
+    }
+
+    private interface Condition {
+        boolean met();
+    }
+
+    private static void waitFor(Condition condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.met()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Timed out");
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private static boolean allDone(UploadQueue queue) {
+        for (UploadItem item : queue.items()) {
+            if (item.state != UploadItem.State.DONE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long sum(int[] values) {
+        long sum = 0;
+        for (int value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
@@ -12,13 +12,24 @@ typedef FlutterLarixCameraViewCreatedCallback = void Function(
 
 enum CAMERA_TYPE { FRONT, BACK }
 
-enum CAMERA_RESOLUTION { SD, HD, FULLHD }
+/// AUTO picks the best size up to FULLHD which both camera and encoder support.
+enum CAMERA_RESOLUTION { SD, HD, FULLHD, AUTO }
+
+/// Video codecs in order of preference, see [FlutterLarix.codecs].
+enum VIDEO_CODEC { HEVC, AV1, AVC }
 
 // ignore: must_be_immutable
 class FlutterLarix extends StatefulWidget {
   CAMERA_RESOLUTION cameraResolution = CAMERA_RESOLUTION.HD;
   CAMERA_TYPE cameraType;
   String url = "";
+
+  /// Most preferred first. A codec is used only with a hardware encoder,
+  /// stream falls back to AVC when it can't be encoded or ingest rejects it.
+  final List<VIDEO_CODEC> codecs;
+
+  /// See [FlutterLarixControllerOptions.ingestUrls].
+  final List<String> ingestUrls;
   final FlutterLarixCameraViewCreatedCallback onCameraViewCreated;
   final Function listener;
   FlutterLarix({
@@ -28,6 +39,8 @@ class FlutterLarix extends StatefulWidget {
     required this.cameraType,
     required this.onCameraViewCreated,
     required this.listener,
+    this.codecs = const [VIDEO_CODEC.AVC],
+    this.ingestUrls = const [],
   }) : super(key: key);
 
   @override
@@ -44,6 +57,9 @@ class _FlutterLarixState extends State<FlutterLarix> {
       "resolution": widget.cameraResolution.name,
       "type": widget.cameraType.name,
       "url": widget.url,
+      "codecs":
+          widget.codecs.map((codec) => codec.name.toLowerCase()).toList(),
+      "ingestUrls": widget.ingestUrls,
     };
 
     switch (defaultTargetPlatform) {
@@ -74,6 +90,7 @@ class _FlutterLarixState extends State<FlutterLarix> {
         cameraType: widget.cameraType,
         cameraResolution: widget.cameraResolution,
         url: widget.url,
+        ingestUrls: widget.ingestUrls,
       ),
     );
     widget.onCameraViewCreated(_controller!);
@@ -1,10 +1,14 @@
 import 'dart:collection';
 
 class ConnectionStatisticsModel {
+  int connectionId;
+  String? uri;
   int bandwidth;
   int traffic;
 
   ConnectionStatisticsModel({
+    this.connectionId = 0,
+    this.uri,
     required this.bandwidth,
     required this.traffic,
   });
@@ -12,6 +16,8 @@ class ConnectionStatisticsModel {
   factory ConnectionStatisticsModel.fromJson(
       HashMap<dynamic, dynamic> parsedJson) {
     return ConnectionStatisticsModel(
+      connectionId: parsedJson['connectionId'] ?? 0,
+      uri: parsedJson['uri'],
       bandwidth: parsedJson['bandwidth'],
       traffic: parsedJson['traffic'],
     );
@@ -1,8 +1,12 @@
 class ConnectionStatisticsFormatedModel {
+  int connectionId;
+  String? uri;
   String bandwidth;
   String traffic;
 
   ConnectionStatisticsFormatedModel({
+    this.connectionId = 0,
+    this.uri,
     required this.bandwidth,
     required this.traffic,
   });
@@ -1,13 +1,19 @@
 import 'dart:collection';
 
 class ConnectionStatusModel {
+  int connectionId;
+  String? uri;
   bool isConnected;
   ConnectionStatusModel({
+    this.connectionId = 0,
+    this.uri,
     required this.isConnected,
   });
 
   factory ConnectionStatusModel.fromJson(HashMap<dynamic, dynamic> parsedJson) {
     return ConnectionStatusModel(
+      connectionId: parsedJson['connectionId'] ?? 0,
+      uri: parsedJson['uri'],
       isConnected: parsedJson['isConnected'],
     );
   }
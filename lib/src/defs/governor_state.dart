@@ -0,0 +1,49 @@
+import 'dart:collection';
+
+/// Limits the encoding governor put on fps, bitrate and resolution
+/// because the device is hot or the battery is low.
+class GovernorStateModel {
+  /// 0 (no limits) to 3 (severe).
+  int level;
+
+  /// "thermal", "battery" or "none".
+  String reason;
+
+  /// PowerManager thermal status, -1 before Android 10.
+  int thermalStatus;
+
+  /// 0..1, -1 when unknown.
+  double batteryLevel;
+  bool charging;
+
+  /// 0 when fps is not capped.
+  int maxFps;
+  double bitrateFraction;
+
+  /// Quality ladder rungs below the starting one.
+  int rungDrop;
+
+  GovernorStateModel({
+    required this.level,
+    required this.reason,
+    required this.thermalStatus,
+    required this.batteryLevel,
+    required this.charging,
+    required this.maxFps,
+    required this.bitrateFraction,
+    required this.rungDrop,
+  });
+
+  factory GovernorStateModel.fromJson(HashMap<dynamic, dynamic> parsedJson) {
+    return GovernorStateModel(
+      level: parsedJson['level'],
+      reason: parsedJson['reason'],
+      thermalStatus: parsedJson['thermalStatus'],
+      batteryLevel: (parsedJson['batteryLevel'] as num).toDouble(),
+      charging: parsedJson['charging'],
+      maxFps: parsedJson['maxFps'],
+      bitrateFraction: (parsedJson['bitrateFrac'] as num).toDouble(),
+      rungDrop: parsedJson['rungDrop'],
+    );
+  }
+}
@@ -0,0 +1,30 @@
+import 'dart:collection';
+
+/// Ingest picked from [FlutterLarixControllerOptions.ingestUrls].
+class IngestSelectedModel {
+  String uri;
+
+  /// "probe" when picked as the fastest before streaming,
+  /// "failover" when the previous one kept failing.
+  String reason;
+
+  /// TCP connect time, -1 for SRT/RIST or when unknown.
+  int connectMs;
+  int resolveMs;
+
+  IngestSelectedModel({
+    required this.uri,
+    required this.reason,
+    required this.connectMs,
+    required this.resolveMs,
+  });
+
+  factory IngestSelectedModel.fromJson(HashMap<dynamic, dynamic> parsedJson) {
+    return IngestSelectedModel(
+      uri: parsedJson['uri'],
+      reason: parsedJson['reason'],
+      connectMs: parsedJson['connectMs'] ?? -1,
+      resolveMs: parsedJson['resolveMs'] ?? -1,
+    );
+  }
+}
@@ -0,0 +1,27 @@
+import 'dart:collection';
+
+/// Default network changed while streaming and connections were reopened on it.
+class NetworkChangedModel {
+  /// "wifi", "cellular", "ethernet" or "other".
+  String transport;
+
+  /// Uplink bandwidth reported by the system, 0 when unknown.
+  int upstreamKbps;
+
+  /// Bitrate the stream restarted with on the new network.
+  int bitrate;
+
+  NetworkChangedModel({
+    required this.transport,
+    required this.upstreamKbps,
+    required this.bitrate,
+  });
+
+  factory NetworkChangedModel.fromJson(HashMap<dynamic, dynamic> parsedJson) {
+    return NetworkChangedModel(
+      transport: parsedJson['transport'],
+      upstreamKbps: parsedJson['upstreamKbps'] ?? 0,
+      bitrate: parsedJson['bitrate'] ?? 0,
+    );
+  }
+}
@@ -0,0 +1,20 @@
+class QualityRungModel {
+  int width;
+  int height;
+  int fps;
+  int bitrate;
+
+  QualityRungModel({
+    required this.width,
+    required this.height,
+    required this.fps,
+    required this.bitrate,
+  });
+
+  factory QualityRungModel.fromHashMap(value) => QualityRungModel(
+        width: value["width"],
+        height: value["height"],
+        fps: value["fps"],
+        bitrate: value["bitrate"],
+      );
+}
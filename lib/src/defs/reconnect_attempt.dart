@@ -0,0 +1,38 @@
+import 'dart:collection';
+
+class ReconnectAttemptModel {
+  int connectionId;
+  String? uri;
+
+  /// Why the connection closed: "AUTH_REJECTED", "STREAM_KEY_IN_USE",
+  /// "CODEC_REJECTED", "HOST_UNREACHABLE", "TIMEOUT", "SERVER_CLOSED",
+  /// "CONNECTION_LOST" or "UNKNOWN". Auth rejections are not retried,
+  /// codec rejections switch the stream to H.264.
+  String? failure;
+  int attempt;
+  int maxAttempts;
+  Duration delay;
+  bool gaveUp;
+
+  ReconnectAttemptModel({
+    this.connectionId = 0,
+    this.uri,
+    this.failure,
+    required this.attempt,
+    required this.maxAttempts,
+    required this.delay,
+    required this.gaveUp,
+  });
+
+  factory ReconnectAttemptModel.fromJson(HashMap<dynamic, dynamic> parsedJson) {
+    return ReconnectAttemptModel(
+      connectionId: parsedJson['connectionId'] ?? 0,
+      uri: parsedJson['uri'],
+      failure: parsedJson['failure'],
+      attempt: parsedJson['attempt'],
+      maxAttempts: parsedJson['maxAttempts'],
+      delay: Duration(milliseconds: parsedJson['delay']),
+      gaveUp: parsedJson['gaveUp'],
+    );
+  }
+}
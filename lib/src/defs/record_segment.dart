@@ -0,0 +1,30 @@
+import 'dart:collection';
+
+/// Segment of a local recording, see [FlutterLarixController.startRecord].
+class RecordSegmentModel {
+  /// "completed", "deleted" (by retention) or "failed".
+  String state;
+
+  /// Starts from 1.
+  int index;
+
+  /// file://, content:// (MediaStore) or SAF document uri.
+  String? uri;
+  String? name;
+
+  RecordSegmentModel({
+    required this.state,
+    required this.index,
+    this.uri,
+    this.name,
+  });
+
+  factory RecordSegmentModel.fromJson(HashMap<dynamic, dynamic> parsedJson) {
+    return RecordSegmentModel(
+      state: parsedJson['state'],
+      index: parsedJson['index'] ?? 0,
+      uri: parsedJson['uri'],
+      name: parsedJson['name'],
+    );
+  }
+}
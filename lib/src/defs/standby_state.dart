@@ -0,0 +1,35 @@
+import 'dart:collection';
+
+/// Result of a standby reachability probe of an ingest uri, see
+/// [FlutterLarixController.setStandby].
+class StandbyStateModel {
+  String uri;
+
+  /// Host resolved and, for RTMP, TCP connection succeeded.
+  bool ready;
+
+  /// DNS lookup time, -1 when it failed.
+  int resolveMs;
+
+  /// TCP connect time, -1 for SRT/RIST or when it failed.
+  int connectMs;
+  String? error;
+
+  StandbyStateModel({
+    required this.uri,
+    required this.ready,
+    required this.resolveMs,
+    required this.connectMs,
+    this.error,
+  });
+
+  factory StandbyStateModel.fromJson(HashMap<dynamic, dynamic> parsedJson) {
+    return StandbyStateModel(
+      uri: parsedJson['uri'],
+      ready: parsedJson['ready'] ?? false,
+      resolveMs: parsedJson['resolveMs'] ?? -1,
+      connectMs: parsedJson['connectMs'] ?? -1,
+      error: parsedJson['error'],
+    );
+  }
+}
@@ -1,14 +1,25 @@
 import 'dart:collection';
 
 class StreamChanged {
+  int connectionId;
+  String? uri;
+
+  /// Only with "DISCONNECTED", same values as ReconnectAttemptModel.failure.
+  String? failure;
   String connectionState;
 
   StreamChanged({
+    this.connectionId = 0,
+    this.uri,
+    this.failure,
     required this.connectionState,
   });
 
   factory StreamChanged.fromJson(HashMap<dynamic, dynamic> parsedJson) {
     return StreamChanged(
+      connectionId: parsedJson['connectionId'] ?? 0,
+      uri: parsedJson['uri'],
+      failure: parsedJson['failure'],
       connectionState: parsedJson['connectionState'],
     );
   }
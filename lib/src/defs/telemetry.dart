@@ -0,0 +1,109 @@
+import 'dart:typed_data';
+
+/// Connection states in the order native side encodes them.
+const telemetryConnectionStates = [
+  "INITIALIZED",
+  "CONNECTED",
+  "SETUP",
+  "RECORD",
+  "IDLE",
+  "DISCONNECTED",
+];
+
+enum TELEMETRY_PROTOCOL { TCP, SRT, RIST }
+
+class TelemetryConnection {
+  int connectionId;
+  String? connectionState;
+  TELEMETRY_PROTOCOL protocol;
+
+  /// RIST link quality in percent, -1 for other protocols.
+  int ristQuality;
+  int bandwidth;
+  int traffic;
+  int audioFramesSkipped;
+  int videoFramesSkipped;
+
+  /// Round trip time in milliseconds, -1 when protocol doesn't report it.
+  double rtt;
+  int srtSendDrops;
+
+  TelemetryConnection({
+    required this.connectionId,
+    required this.connectionState,
+    required this.protocol,
+    required this.ristQuality,
+    required this.bandwidth,
+    required this.traffic,
+    required this.audioFramesSkipped,
+    required this.videoFramesSkipped,
+    required this.rtt,
+    required this.srtSendDrops,
+  });
+}
+
+class TelemetrySample {
+  DateTime timestamp;
+  int bitrate;
+  double fps;
+
+  /// Automatic bitrate ladder step, -1 when strategy has none or it is stopped.
+  int conditionerStep;
+  List<TelemetryConnection> connections;
+
+  TelemetrySample({
+    required this.timestamp,
+    required this.bitrate,
+    required this.fps,
+    required this.conditionerStep,
+    required this.connections,
+  });
+
+  static const int version = 1;
+
+  /// Decodes one frame, layout is described in StatsTelemetry.java.
+  static List<TelemetrySample> fromFrame(Uint8List frame) {
+    final data = ByteData.sublistView(frame);
+    if (data.lengthInBytes < 4 || data.getUint8(0) != version) {
+      return const [];
+    }
+    final count = data.getUint16(2, Endian.little);
+    var offset = 4;
+    final samples = <TelemetrySample>[];
+    for (var i = 0; i < count; i++) {
+      final timestamp = data.getInt64(offset, Endian.little);
+      final bitrate = data.getInt32(offset + 8, Endian.little);
+      final fps = data.getFloat32(offset + 12, Endian.little);
+      final step = data.getInt8(offset + 16);
+      final connectionCount = data.getUint8(offset + 17);
+      offset += 18;
+      final connections = <TelemetryConnection>[];
+      for (var j = 0; j < connectionCount; j++) {
+        final state = data.getInt8(offset + 4);
+        connections.add(TelemetryConnection(
+          connectionId: data.getInt32(offset, Endian.little),
+          connectionState: state >= 0 && state < telemetryConnectionStates.length
+              ? telemetryConnectionStates[state]
+              : null,
+          protocol: TELEMETRY_PROTOCOL.values[data.getInt8(offset + 5)],
+          ristQuality: data.getInt16(offset + 6, Endian.little),
+          bandwidth: data.getInt64(offset + 8, Endian.little),
+          traffic: data.getInt64(offset + 16, Endian.little),
+          audioFramesSkipped: data.getInt32(offset + 24, Endian.little),
+          videoFramesSkipped: data.getInt32(offset + 28, Endian.little),
+          rtt: data.getFloat32(offset + 32, Endian.little),
+          srtSendDrops: data.getInt64(offset + 36, Endian.little),
+        ));
+        offset += 44;
+      }
+      samples.add(TelemetrySample(
+        timestamp: DateTime.fromMillisecondsSinceEpoch(timestamp),
+        bitrate: bitrate,
+        fps: fps,
+        conditionerStep: step,
+        connections: connections,
+      ));
+    }
+    return samples;
+  }
+}
@@ -0,0 +1,47 @@
+import 'dart:collection';
+
+/// Recorded file in the background upload queue, see [FlutterLarixController.enqueueUpload].
+class UploadModel {
+  int id;
+
+  /// File path, file:// or content:// uri.
+  String uri;
+  String name;
+
+  /// -1 until the file is opened.
+  int length;
+
+  /// Bytes the server confirmed.
+  int offset;
+
+  /// "QUEUED", "UPLOADING", "DONE" or "FAILED".
+  String state;
+
+  /// Failed attempts in a row, reset by any progress.
+  int attempts;
+  String? error;
+
+  UploadModel({
+    required this.id,
+    required this.uri,
+    required this.name,
+    required this.length,
+    required this.offset,
+    required this.state,
+    required this.attempts,
+    this.error,
+  });
+
+  factory UploadModel.fromJson(HashMap<dynamic, dynamic> parsedJson) {
+    return UploadModel(
+      id: parsedJson['id'],
+      uri: parsedJson['uri'],
+      name: parsedJson['name'],
+      length: parsedJson['length'] ?? -1,
+      offset: parsedJson['offset'] ?? 0,
+      state: parsedJson['state'],
+      attempts: parsedJson['attempts'] ?? 0,
+      error: parsedJson['error'],
+    );
+  }
+}
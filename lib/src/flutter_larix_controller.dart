@@ -2,6 +2,7 @@
 
 import 'dart:async';
 import 'dart:collection';
+import 'dart:typed_data';
 
 import 'package:flutter/services.dart';
 import 'package:flutter_larix/src/defs/camera_info_model.dart';
@@ -9,18 +10,36 @@ import 'package:flutter_larix/src/defs/connectionStatistics.dart';
 import 'package:flutter_larix/src/defs/connectionStatisticsFormated.dart';
 import 'package:flutter_larix/src/defs/connection_status.dart';
 import 'package:flutter_larix/src/defs/focus_model.dart';
+import 'package:flutter_larix/src/defs/governor_state.dart';
+import 'package:flutter_larix/src/defs/ingest_selected.dart';
+import 'package:flutter_larix/src/defs/network_changed.dart';
 import 'package:flutter_larix/src/defs/permissions.dart';
+import 'package:flutter_larix/src/defs/quality_rung.dart';
+import 'package:flutter_larix/src/defs/reconnect_attempt.dart';
+import 'package:flutter_larix/src/defs/record_segment.dart';
+import 'package:flutter_larix/src/defs/standby_state.dart';
 import 'package:flutter_larix/src/defs/stream_changed.dart';
+import 'package:flutter_larix/src/defs/telemetry.dart';
+import 'package:flutter_larix/src/defs/upload.dart';
 import 'package:flutter_larix/src/flutter_larix_controller_options.dart';
 
 enum STREAM_STATUS { ON, OFF }
 
+/// Where [FlutterLarixController.startRecord] writes: app's files dir,
+/// shared DCIM/FlutterLarix folder or a Storage Access Framework tree uri.
+enum RECORD_STORAGE { APP, DCIM, SAF }
+
 class FlutterLarixController {
   late MethodChannel _channel;
+  final EventChannel _telemetryChannel =
+      const EventChannel('br.com.devmagic.flutter_larix/telemetry');
+  static const MethodChannel _pluginChannel =
+      MethodChannel('br.com.devmagic.flutter_larix/plugin');
 
   STREAM_STATUS _streamStatus = STREAM_STATUS.OFF;
   bool _muteStatus = false;
   String _connectionState = "";
+  final Map<int, String> _connectionStates = {};
   bool _torchIsOn = false;
 
   FlutterLarixControllerOptions options;
@@ -41,11 +60,105 @@ class FlutterLarixController {
         case 'connectionStatus':
           _connectionStatus(call.arguments);
           return;
+        case 'reconnectAttempt':
+          reconnectAttemptStream.add(
+              ReconnectAttemptModel.fromJson(HashMap.from(call.arguments)));
+          return;
+        case 'codecChanged':
+          codecChangedStream.add(call.arguments['codec']);
+          return;
+        case 'resolutionChanged':
+          resolutionChangedStream
+              .add(QualityRungModel.fromHashMap(call.arguments));
+          return;
+        case 'governorChanged':
+          governorStream
+              .add(GovernorStateModel.fromJson(HashMap.from(call.arguments)));
+          return;
+        case 'recordSegment':
+          recordSegmentStream
+              .add(RecordSegmentModel.fromJson(HashMap.from(call.arguments)));
+          return;
+        case 'networkChanged':
+          networkChangedStream
+              .add(NetworkChangedModel.fromJson(HashMap.from(call.arguments)));
+          return;
+        case 'ingestSelected':
+          ingestSelectedStream
+              .add(IngestSelectedModel.fromJson(HashMap.from(call.arguments)));
+          return;
+        case 'standbyChanged':
+          standbyStream
+              .add(StandbyStateModel.fromJson(HashMap.from(call.arguments)));
+          return;
       }
       options.listener.call();
     });
   }
 
+  /// Scans cameras and encoder capabilities in background before the view is created,
+  /// so initCamera doesn't have to. Returns time spent in ms, safe to call more than once.
+  static Future<int?> prewarm() async {
+    return await _pluginChannel.invokeMethod<int>('prewarm');
+  }
+
+  /// Progress of every queued upload, shared by all controllers.
+  static Stream<UploadModel> get uploadStream => _uploadStream;
+
+  /// Static finals are initialized on first read, so the handler is installed once.
+  static final Stream<UploadModel> _uploadStream = _listenUploads();
+
+  static Stream<UploadModel> _listenUploads() {
+    final controller = StreamController<UploadModel>.broadcast();
+    _pluginChannel.setMethodCallHandler((call) async {
+      if (call.method == 'uploadChanged') {
+        controller.add(UploadModel.fromJson(HashMap.from(call.arguments)));
+      }
+    });
+    return controller.stream;
+  }
+
+  /// tus 1.0.0 [endpoint] for recorded files, e.g. "https://host/files/".
+  /// Queued files wait until it's set and while any view is streaming,
+  /// and resume from the last confirmed byte after failures or app restart.
+  static Future<void> configureUploads(
+    String endpoint, {
+    Map<String, String>? headers,
+    int? chunkSizeKb,
+    int? maxParallel,
+  }) async {
+    await _pluginChannel.invokeMethod('configureUploads', {
+      'endpoint': endpoint,
+      'headers': headers,
+      'chunkSize': (chunkSizeKb ?? 0) * 1024,
+      'maxParallel': maxParallel ?? 0,
+    });
+  }
+
+  /// Returns id of the upload, [uri] is a file path, file:// or content:// uri.
+  static Future<int> enqueueUpload(String uri, {String? name}) async {
+    return await _pluginChannel.invokeMethod('enqueueUpload', {
+      'uri': uri,
+      'name': name,
+    });
+  }
+
+  static Future<bool> removeUpload(int id) async {
+    return await _pluginChannel.invokeMethod('removeUpload', id);
+  }
+
+  /// Queues failed uploads again.
+  static Future<void> retryUploads() async {
+    await _pluginChannel.invokeMethod('retryUploads');
+  }
+
+  static Future<List<UploadModel>> getUploads() async {
+    List<dynamic> items = await _pluginChannel.invokeMethod('getUploads');
+    return items
+        .map((item) => UploadModel.fromJson(HashMap.from(item)))
+        .toList();
+  }
+
   Future<String> initCamera(int bitRate) async {
     return await _channel.invokeMethod('initCamera', bitRate);
   }
@@ -67,22 +180,74 @@ class FlutterLarixController {
     );
   }
 
-  Future<int?> startStream() async {
-    int streamId = await _channel.invokeMethod('startStream', options.toJson());
-    if (streamId > 0) {
-      return streamId;
-    } else {
-      await Future.delayed(const Duration(milliseconds: 1500), () {});
-      return await startStream();
+  /// Publishes to [urls] when given, otherwise to the options url and backup urls.
+  /// With [ingestUrls] (or options ingestUrls) the primary url is the fastest
+  /// healthy candidate, probed first unless standby probed them recently.
+  /// Completes as soon as camera and mic capture run, or fails with a
+  /// [PlatformException] ("START_TIMEOUT", "CAPTURE_FAILED") after [timeout].
+  /// Returns connection id of the first (primary) destination, null when
+  /// no connection could be created.
+  Future<int?> startStream({
+    List<String>? urls,
+    List<String>? ingestUrls,
+    Duration timeout = const Duration(seconds: 10),
+  }) async {
+    var arguments = options.toJson();
+    if (urls != null && urls.isNotEmpty) {
+      arguments['urls'] = urls;
+    }
+    if (ingestUrls != null) {
+      arguments['ingestUrls'] = ingestUrls;
     }
+    arguments['startTimeout'] = timeout.inMilliseconds;
+    int streamId = await _channel.invokeMethod('startStream', arguments);
+    return streamId > 0 ? streamId : null;
+  }
+
+  /// While preview runs and nothing is published, resolves ingest hosts and
+  /// times a TCP connect to RTMP ones every [interval]. This checks ingest is
+  /// reachable and keeps hosts in DNS cache; no connection is kept open and the
+  /// publish handshake still runs on [startStream]. Results go to [standbyStream].
+  Future<void> setStandby(
+    bool enabled, {
+    Duration interval = const Duration(seconds: 20),
+  }) async {
+    await _channel.invokeMethod('setStandby', {
+      'enabled': enabled,
+      'interval': interval.inMilliseconds,
+    });
   }
 
   Future<void> stopRecord() async {
     await _channel.invokeMethod('stopRecord');
   }
 
-  Future<String> startRecord(String fileName) async {
-    String filePath = await _channel.invokeMethod('startRecord', fileName);
+  /// Records into one file, or into segments of [segmentDuration] and/or
+  /// [segmentSizeMb] each. Retention keeps at most [maxSegments] files and
+  /// [maxTotalSizeMb] of finished segments, oldest are deleted first.
+  /// With [upload] finished segments are queued for [configureUploads] endpoint;
+  /// retention may delete a segment before its upload is done.
+  /// Returns path or name of the first file, empty when recording didn't start.
+  Future<String> startRecord(
+    String fileName, {
+    RECORD_STORAGE storage = RECORD_STORAGE.APP,
+    String? safUri,
+    Duration? segmentDuration,
+    int? segmentSizeMb,
+    int? maxSegments,
+    int? maxTotalSizeMb,
+    bool upload = false,
+  }) async {
+    String filePath = await _channel.invokeMethod('startRecord', {
+      'fileName': fileName,
+      'storage': storage.name.toLowerCase(),
+      'safUri': safUri,
+      'segmentDuration': segmentDuration?.inMilliseconds ?? 0,
+      'segmentSize': (segmentSizeMb ?? 0) * 1024 * 1024,
+      'maxSegments': maxSegments ?? 0,
+      'maxTotalSize': (maxTotalSizeMb ?? 0) * 1024 * 1024,
+      'upload': upload,
+    });
     return filePath;
   }
 
@@ -101,6 +266,7 @@ class FlutterLarixController {
 
   Future<void> stopStream() async {
     await _channel.invokeMethod('stopStream');
+    _connectionStates.clear();
   }
 
   Future<bool> startAudioCapture() async {
@@ -139,6 +305,28 @@ class FlutterLarixController {
     await _channel.invokeMethod('reconnect');
   }
 
+  /// Lost connections are retried after [initialDelay], growing by [multiplier]
+  /// up to [maxDelay]. [jitter] (0.0..1.0) randomizes part of each delay.
+  /// [maxAttempts] of 0 retries forever. When outage is shorter than
+  /// [resumeWindow] stream resumes at the last bitrate which worked.
+  Future<void> setReconnectPolicy({
+    Duration? initialDelay,
+    Duration? maxDelay,
+    double? multiplier,
+    double? jitter,
+    int? maxAttempts,
+    Duration? resumeWindow,
+  }) async {
+    await _channel.invokeMethod('setReconnectPolicy', <String, dynamic>{
+      if (initialDelay != null) 'initialDelay': initialDelay.inMilliseconds,
+      if (maxDelay != null) 'maxDelay': maxDelay.inMilliseconds,
+      if (multiplier != null) 'multiplier': multiplier,
+      if (jitter != null) 'jitter': jitter,
+      if (maxAttempts != null) 'maxAttempts': maxAttempts,
+      if (resumeWindow != null) 'resumeWindow': resumeWindow.inMilliseconds,
+    });
+  }
+
   Future<bool> getRotatePermission() async {
     bool permission = await _channel.invokeMethod('getRotatePermission');
     return permission;
@@ -171,6 +359,17 @@ class FlutterLarixController {
     );
   }
 
+  /// Size/fps/bitrate rungs for the active camera and encoder, best first.
+  /// Empty until initCamera.
+  Future<List<QualityRungModel>> getQualityLadder() async {
+    var rungs =
+        (await _channel.invokeMethod('getQualityLadder')) as List<dynamic>;
+    return List.generate(
+      rungs.length,
+      (int value) => QualityRungModel.fromHashMap(rungs[value]),
+    );
+  }
+
   Future<FocusModel> setFocus(bool isAutoFocus, double distanceFocus) async {
     return FocusModel.fromHashMap(await _channel.invokeMethod('setFocus', {
       'isAutoFocus': isAutoFocus,
@@ -178,8 +377,40 @@ class FlutterLarixController {
     }));
   }
 
-  Future<void> startAutomaticBitRate(int bitrate) async {
-    await _channel.invokeMethod('startAutomaticBitRate', bitrate);
+  /// [strategy] is a bitrate control algorithm name registered on the native side:
+  /// "ladder" (default), "aimd", "bandwidth" (SRT only) or "auto" to pick one
+  /// by stream protocol. Other names fail with a [PlatformException]
+  /// ("UNKNOWN_STRATEGY").
+  /// [checkInterval] overrides how often the strategy samples network statistics.
+  /// [adaptResolution] lets the strategy move the encoder between quality
+  /// ladder rungs under sustained congestion, on by default for AUTO resolution.
+  Future<void> startAutomaticBitRate(int bitrate,
+      {String strategy = "ladder",
+      Duration? checkInterval,
+      bool? adaptResolution}) async {
+    await _channel.invokeMethod('startAutomaticBitRate', <String, dynamic>{
+      'bitrate': bitrate,
+      'strategy': strategy,
+      if (checkInterval != null) 'checkInterval': checkInterval.inMilliseconds,
+      if (adaptResolution != null) 'adaptResolution': adaptResolution,
+    });
+  }
+
+  /// Per-connection metrics sampled every [interval] and delivered in
+  /// batches of [batch] samples. While subscribed, connectionStatisticsStream
+  /// is not updated.
+  Stream<List<TelemetrySample>> telemetryStream(
+      {Duration interval = const Duration(milliseconds: 250), int batch = 1}) {
+    return _telemetryChannel.receiveBroadcastStream(<String, dynamic>{
+      'interval': interval.inMilliseconds,
+      'batch': batch,
+    }).map((frame) => TelemetrySample.fromFrame(frame as Uint8List));
+  }
+
+  /// How often connectionStatisticsStream is updated, 2 seconds by default.
+  Future<void> setStatisticsInterval(Duration interval) async {
+    await _channel.invokeMethod(
+        'setStatisticsInterval', interval.inMilliseconds);
   }
 
   Future<void> stopAutomaticBitRate() async {
@@ -199,6 +430,11 @@ class FlutterLarixController {
     return _connectionState;
   }
 
+  /// Last known state of every destination, keyed by connection id.
+  Map<int, String> getConnectionStates() {
+    return Map.unmodifiable(_connectionStates);
+  }
+
   bool getTorchIsOn() {
     return _torchIsOn;
   }
@@ -206,7 +442,9 @@ class FlutterLarixController {
   void _onStreamChanged(dynamic arguments) {
     var streamChanged = StreamChanged.fromJson(HashMap.from(arguments));
     _connectionState = streamChanged.connectionState;
-    if (_connectionState == "DISCONNECTED") {
+    _connectionStates[streamChanged.connectionId] = _connectionState;
+    // Stream is on while any destination is still connected
+    if (_connectionStates.values.every((state) => state == "DISCONNECTED")) {
       _streamStatus = STREAM_STATUS.OFF;
     } else {
       _streamStatus = STREAM_STATUS.ON;
@@ -220,6 +458,36 @@ class FlutterLarixController {
   StreamController<ConnectionStatusModel> connectionStatusStream =
       StreamController<ConnectionStatusModel>();
 
+  StreamController<ReconnectAttemptModel> reconnectAttemptStream =
+      StreamController<ReconnectAttemptModel>();
+
+  /// Codec name ("avc") after fallback from a codec which failed.
+  StreamController<String> codecChangedStream = StreamController<String>();
+
+  /// Encoder size, fps and bitrate after the conditioner switched ladder rung.
+  StreamController<QualityRungModel> resolutionChangedStream =
+      StreamController<QualityRungModel>();
+
+  /// Encoding limits after the device got hotter or cooler, or battery ran low.
+  StreamController<GovernorStateModel> governorStream =
+      StreamController<GovernorStateModel>();
+
+  /// Finished and deleted segments of the local recording.
+  StreamController<RecordSegmentModel> recordSegmentStream =
+      StreamController<RecordSegmentModel>();
+
+  /// Connections moved to a new default network (e.g. Wi-Fi to cellular).
+  StreamController<NetworkChangedModel> networkChangedStream =
+      StreamController<NetworkChangedModel>();
+
+  /// Primary ingest chosen from ingest candidates, on start and on failover.
+  StreamController<IngestSelectedModel> ingestSelectedStream =
+      StreamController<IngestSelectedModel>();
+
+  /// Ingest reachability while in standby, see [setStandby].
+  StreamController<StandbyStateModel> standbyStream =
+      StreamController<StandbyStateModel>();
+
   void connectionStatistics(arguments) {
     ConnectionStatisticsModel streamChanged =
         ConnectionStatisticsModel.fromJson(
@@ -227,6 +495,8 @@ class FlutterLarixController {
     );
     connectionStatisticsStream.add(
       ConnectionStatisticsFormatedModel(
+        connectionId: streamChanged.connectionId,
+        uri: streamChanged.uri,
         bandwidth: bandwidthToString(streamChanged.bandwidth),
         traffic: trafficToString(streamChanged.traffic),
       ),
@@ -6,17 +6,31 @@ class FlutterLarixControllerOptions {
   final CAMERA_TYPE cameraType;
   final CAMERA_RESOLUTION cameraResolution;
   final String url;
+
+  /// Backup ingest URLs, the same stream is published to [url] and each of them.
+  final List<String> backupUrls;
+
+  /// Ingest candidates in order of preference, e.g. one per region. When set,
+  /// the fastest healthy one replaces [url] and later ones take over on
+  /// repeated failures.
+  final List<String> ingestUrls;
   const FlutterLarixControllerOptions({
     required this.id,
     required this.listener,
     required this.cameraResolution,
     required this.url,
     required this.cameraType,
+    this.backupUrls = const [],
+    this.ingestUrls = const [],
   });
 
+  List<String> get urls => [url, ...backupUrls];
+
   Map<String, dynamic> toJson() => {
         "cameraId": cameraType == CAMERA_TYPE.FRONT ? 1 : 0,
         "cameraResolution": cameraResolution.name,
         "url": url,
+        "urls": urls,
+        "ingestUrls": ingestUrls,
       };
 }